@@ -0,0 +1,57 @@
+package com.incrementservice.benchmarks;
+
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+
+/**
+ * Redis server started from the binary bundled with the embedded-redis library, with a Lettuce connection factory
+ * configured like the service's.
+ */
+final class EmbeddedRedis implements AutoCloseable {
+
+    private static final String HOST = "localhost";
+
+    private final int port;
+    private final RedisServer server;
+    private final LettuceConnectionFactory connectionFactory;
+
+    /**
+     * Starts the server on a free port and connects to it.
+     *
+     * @exception IOException if the server cannot be started
+     */
+    EmbeddedRedis() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = new RedisServer(port);
+        server.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(HOST, port));
+        connectionFactory.setPipeliningFlushPolicy(LettuceConnection.PipeliningFlushPolicy.flushOnClose());
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+    }
+
+    String host() {
+        return HOST;
+    }
+
+    int port() {
+        return port;
+    }
+
+    LettuceConnectionFactory connectionFactory() {
+        return connectionFactory;
+    }
+
+    @Override
+    public void close() throws IOException {
+        connectionFactory.destroy();
+        server.stop();
+    }
+}
@@ -0,0 +1,102 @@
+package com.incrementservice.benchmarks;
+
+import com.incrementservice.config.RedisConfig;
+import com.incrementservice.service.CounterKeyspace;
+import com.incrementservice.service.CounterStore;
+import com.incrementservice.service.HotKeyDetector;
+import com.incrementservice.service.IncrementBatcher;
+import com.incrementservice.service.IncrementBuffer;
+import com.incrementservice.service.IncrementJournal;
+import com.incrementservice.service.IncrementService;
+import com.incrementservice.service.MemoryCounterStore;
+import com.incrementservice.service.RedisCounterStore;
+import com.incrementservice.service.TopKeysTracker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link IncrementService#saveOrUpdateDataInRedis} against an in-process Redis server, writing through
+ * directly, through the micro-batcher or through the in-process buffer, and against the in-JVM counter store without
+ * and with the fsynced journal. Top keys are tracked, as configured by default.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class IncrementServiceBenchmark {
+
+    @Param({"direct", "batcher", "buffer", "memory", "journal"})
+    private String mode;
+
+    @Param({"1", "10000"})
+    private int keyCount;
+
+    private EmbeddedRedis redis;
+    private IncrementBatcher batcher;
+    private IncrementJournal journal;
+    private IncrementService service;
+    private String[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        redis = new EmbeddedRedis();
+        RedisTemplate<String, Long> redisTemplate = new RedisConfig().redisTemplate(redis.connectionFactory());
+        redisTemplate.afterPropertiesSet();
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        IncrementBuffer buffer = new IncrementBuffer("buffer".equals(mode), 100000, 10000, meterRegistry);
+        batcher = new IncrementBatcher("batcher".equals(mode), 200, 256, 10000, 1000, meterRegistry);
+        HotKeyDetector hotKeyDetector = new HotKeyDetector(false, 8, 16, 10000, 10, 1000, 4096, meterRegistry);
+        CounterKeyspace counterKeyspace = new CounterKeyspace("standalone", 1, hotKeyDetector);
+        RedisCounterStore redisCounterStore = new RedisCounterStore(redisTemplate, hotKeyDetector, counterKeyspace,
+                meterRegistry);
+        redisCounterStore.loadScripts();
+        journal = new IncrementJournal("journal".equals(mode), "benchmark",
+                Files.createTempDirectory("journal").toString(), 64 << 20, 60000, true, 5000, meterRegistry);
+        journal.open();
+        CounterStore counterStore = "memory".equals(mode) || "journal".equals(mode)
+                ? new MemoryCounterStore(60, journal, meterRegistry)
+                : redisCounterStore;
+        service = new IncrementService(counterStore, buffer, batcher, journal, new TopKeysTracker(true, 60, 100, 1024));
+        service.startBatcher();
+
+        keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "key-" + i;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        batcher.stop();
+        journal.close();
+        redis.close();
+    }
+
+    @Benchmark
+    public void saveOrUpdateDataInRedis() {
+        service.saveOrUpdateDataInRedis(keys[ThreadLocalRandom.current().nextInt(keys.length)], 1L);
+    }
+}
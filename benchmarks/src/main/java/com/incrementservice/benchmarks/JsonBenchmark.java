@@ -0,0 +1,62 @@
+package com.incrementservice.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.incrementservice.dto.IncrementBatchRequest;
+import com.incrementservice.dto.IncrementRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the deserialization of request bodies with an object mapper configured like Spring MVC's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    @Param({"100"})
+    private int batchItems;
+
+    private ObjectMapper objectMapper;
+    private byte[] singleBody;
+    private byte[] batchBody;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        singleBody = "{\"key\":\"some-key\",\"value\":1}".getBytes(StandardCharsets.UTF_8);
+        StringJoiner items = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < batchItems; i++) {
+            items.add("{\"key\":\"key-" + i + "\",\"value\":" + i + "}");
+        }
+        batchBody = items.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public IncrementRequest readIncrementRequest() throws IOException {
+        return objectMapper.readValue(singleBody, IncrementRequest.class);
+    }
+
+    @Benchmark
+    public IncrementBatchRequest readIncrementBatchRequest() throws IOException {
+        return objectMapper.readValue(batchBody, IncrementBatchRequest.class);
+    }
+}
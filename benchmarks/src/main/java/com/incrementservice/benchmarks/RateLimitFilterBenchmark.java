@@ -0,0 +1,110 @@
+package com.incrementservice.benchmarks;
+
+import com.incrementservice.filter.RateLimitFilter;
+import com.incrementservice.service.RateLimitService;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
+import io.github.bucket4j.redis.lettuce.cas.LettuceBasedProxyManager;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the decision of the {@link RateLimitFilter} for allowed requests, with buckets stored in an in-process
+ * Redis server, in the distributed and hybrid rate limit modes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class RateLimitFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+    };
+
+    @Param({"distributed", "hybrid"})
+    private String mode;
+
+    @Param({"100"})
+    private int clientCount;
+
+    private EmbeddedRedis redis;
+    private RedisClient redisClient;
+    private RateLimitFilter filter;
+    private String[] clientIps;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        redis = new EmbeddedRedis();
+        redisClient = RedisClient.create(RedisURI.create(redis.host(), redis.port()));
+        StatefulRedisConnection<String, byte[]> connection =
+                redisClient.connect(RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE));
+        // Large enough that no request is rejected, so every iteration measures the same path
+        BucketConfiguration bucketConfiguration = BucketConfiguration.builder()
+                .addLimit(Bandwidth.builder().capacity(1_000_000_000L)
+                        .refillGreedy(1_000_000_000L, Duration.ofSeconds(1)).build())
+                .build();
+        LettuceBasedProxyManager<String> proxyManager = LettuceBasedProxyManager.builderFor(connection)
+                .withExpirationStrategy(
+                        ExpirationAfterWriteStrategy.basedOnTimeForRefillingBucketUpToMax(Duration.ofMinutes(1)))
+                .build();
+        RateLimitService rateLimitService = new RateLimitService(proxyManager.builder(),
+                proxyManager.asAsync().builder(), () -> bucketConfiguration, false, mode, 5, 1000,
+                new SimpleMeterRegistry());
+
+        filter = new RateLimitFilter();
+        ReflectionTestUtils.setField(filter, "rateLimitService", rateLimitService);
+
+        clientIps = new String[clientCount];
+        for (int i = 0; i < clientCount; i++) {
+            clientIps[i] = "10.0." + (i / 256) + "." + (i % 256);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        redisClient.shutdown();
+        redis.close();
+    }
+
+    @Benchmark
+    public int doFilter() throws IOException, ServletException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/increment");
+        request.setRemoteAddr(clientIps[ThreadLocalRandom.current().nextInt(clientIps.length)]);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, NO_OP_CHAIN);
+        return response.getStatus();
+    }
+}
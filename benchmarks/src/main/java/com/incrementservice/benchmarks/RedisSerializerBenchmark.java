@@ -0,0 +1,57 @@
+package com.incrementservice.benchmarks;
+
+import com.incrementservice.config.NumericRedisSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a round trip of a counter value through the value serializer of the service's {@code RedisTemplate}, the
+ * generic conversion-based string serializer and the former JSON serializer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisSerializerBenchmark {
+
+    private RedisSerializer<Object> jsonSerializer;
+    private RedisSerializer<Long> genericToStringSerializer;
+    private long value;
+
+    @Setup
+    public void setUp() {
+        jsonSerializer = new GenericJackson2JsonRedisSerializer();
+        genericToStringSerializer = new GenericToStringSerializer<>(Long.class);
+        value = 1_234_567L;
+    }
+
+    @Benchmark
+    public Object jsonRoundTrip() {
+        return jsonSerializer.deserialize(jsonSerializer.serialize(value));
+    }
+
+    @Benchmark
+    public Long genericToStringRoundTrip() {
+        return genericToStringSerializer.deserialize(genericToStringSerializer.serialize(value));
+    }
+
+    @Benchmark
+    public Long numericRoundTrip() {
+        return NumericRedisSerializer.INSTANCE.deserialize(NumericRedisSerializer.INSTANCE.serialize(value));
+    }
+}
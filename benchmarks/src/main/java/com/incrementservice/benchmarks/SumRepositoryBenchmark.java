@@ -0,0 +1,79 @@
+package com.incrementservice.benchmarks;
+
+import com.incrementservice.repository.SumRepositoryCustomImpl;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the database write of flushed sums against an embedded PostgreSQL server: a single-key upsert, as done by
+ * {@code FlushService.updateOrInsertRecord} for expired keys, and a page of upserts, as done by the
+ * {@code FlushService}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SumRepositoryBenchmark {
+
+    @Param({"500"})
+    private int pageSize;
+
+    private EmbeddedPostgres postgres;
+    private HikariDataSource dataSource;
+    private SumRepositoryCustomImpl repository;
+    private Map<String, Long> page;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true");
+        Flyway.configure().dataSource(dataSource).locations("classpath:flyway").load().migrate();
+        repository = new SumRepositoryCustomImpl(new JdbcTemplate(dataSource), new SimpleMeterRegistry());
+
+        page = new LinkedHashMap<>();
+        for (int i = 0; i < pageSize; i++) {
+            page.put("page-key-" + i, 1L);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        dataSource.close();
+        postgres.close();
+    }
+
+    @Benchmark
+    public void updateOrInsertRecord() {
+        repository.upsertAll(Map.of("key-" + ThreadLocalRandom.current().nextInt(10000), 1L));
+    }
+
+    @Benchmark
+    public void upsertPage() {
+        repository.upsertAll(page);
+    }
+}
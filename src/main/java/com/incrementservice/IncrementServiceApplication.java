@@ -2,11 +2,13 @@ package com.incrementservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Starts the Increment Service application.
  */
 @SpringBootApplication
+@EnableScheduling
 public class IncrementServiceApplication {
 
     /**
@@ -0,0 +1,121 @@
+package com.incrementservice.config;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Configures the decoder validating the bearer tokens of both web stacks.
+ * Validated tokens are cached by a {@link CachingJwtDecoder}. The signing keys are loaded from {@code jwk-set-uri} on
+ * startup and refreshed {@code refresh-ahead-ms} before they expire on a background thread, so requests do not wait
+ * for the key set unless a token is signed with a key that is not known yet.
+ */
+@Configuration
+@Slf4j
+public class JwtDecoderConfig {
+
+    @Value("${spring.security.oauth2.resourceserver.jwt.issuer-uri}")
+    private String issuerUri;
+
+    @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}")
+    private String jwkSetUri;
+
+    @Value("${increment-config.jwt.jwks.ttl-ms:300000}")
+    private long jwksTtlMillis;
+
+    @Value("${increment-config.jwt.jwks.refresh-ahead-ms:30000}")
+    private long jwksRefreshAheadMillis;
+
+    @Value("${increment-config.jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    @Value("${increment-config.jwt.cache.max-ttl-ms:3600000}")
+    private long cacheMaxTtlMillis;
+
+    /**
+     * Creates the source of the signing keys and loads them.
+     * A key set that cannot be loaded on startup is loaded with the first request instead.
+     *
+     * @return the configured {@link JWKSource}
+     * @exception MalformedURLException if {@code jwk-set-uri} is not a valid URL
+     */
+    @Bean
+    public JWKSource<SecurityContext> jwkSource() throws MalformedURLException {
+        JWKSource<SecurityContext> jwkSource = JWKSourceBuilder.<SecurityContext>create(URI.create(jwkSetUri).toURL())
+                .cache(jwksTtlMillis, JWKSourceBuilder.DEFAULT_CACHE_REFRESH_TIMEOUT)
+                .refreshAheadCache(jwksRefreshAheadMillis, true)
+                .build();
+        try {
+            List<JWK> keys = jwkSource.get(new JWKSelector(new JWKMatcher.Builder().build()), null);
+            log.info("Loaded JWT signing keys: keys = {}", keys.size());
+        } catch (KeySourceException e) {
+            log.warn("Failed to load JWT signing keys from {}, they will be loaded with the first request",
+                    jwkSetUri, e);
+        }
+        return jwkSource;
+    }
+
+    /**
+     * Creates the caching decoder of the servlet stack, validating the RS256 signature, timestamps and issuer of
+     * tokens missing from its cache.
+     *
+     * @param jwkSource     the source of the signing keys
+     * @param meterRegistry the registry used to publish cache metrics
+     * @return the configured {@link CachingJwtDecoder}
+     */
+    @Bean
+    public CachingJwtDecoder jwtDecoder(JWKSource<SecurityContext> jwkSource, MeterRegistry meterRegistry) {
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkSource));
+        // Claims are validated by the JWT validator of the decoder
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+        NimbusJwtDecoder nimbusJwtDecoder = new NimbusJwtDecoder(jwtProcessor);
+        nimbusJwtDecoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(issuerUri));
+        return new CachingJwtDecoder(nimbusJwtDecoder, cacheMaxSize, Duration.ofMillis(cacheMaxTtlMillis),
+                meterRegistry);
+    }
+
+    /**
+     * Creates the decoder of the reactive stack, which serves cached tokens on the calling thread and validates the
+     * others on the bounded elastic scheduler, since a key set refresh may block.
+     *
+     * @param jwtDecoder the caching decoder
+     * @return the configured {@link ReactiveJwtDecoder}
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public ReactiveJwtDecoder reactiveJwtDecoder(CachingJwtDecoder jwtDecoder) {
+        return token -> {
+            Jwt cached = jwtDecoder.getIfCached(token);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            return Mono.fromCallable(() -> jwtDecoder.decode(token)).subscribeOn(Schedulers.boundedElastic());
+        };
+    }
+}
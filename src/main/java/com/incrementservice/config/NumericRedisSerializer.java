@@ -0,0 +1,59 @@
+package com.incrementservice.config;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serializes counters as the decimal strings Redis uses for integer values, so that values written by the application
+ * can be incremented by {@code INCRBY} and values written by Redis can be read back without a JSON mapper.
+ * Deserialization parses the bytes directly instead of decoding them to a string first.
+ */
+public final class NumericRedisSerializer implements RedisSerializer<Long> {
+
+    /**
+     * Shared instance; the serializer is stateless.
+     */
+    public static final NumericRedisSerializer INSTANCE = new NumericRedisSerializer();
+
+    private NumericRedisSerializer() {
+    }
+
+    @Override
+    public byte[] serialize(Long value) {
+        return value == null ? null : Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public Long deserialize(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        boolean negative = bytes[0] == '-';
+        int start = negative ? 1 : 0;
+        if (start == bytes.length) {
+            throw new SerializationException("Not a number: -");
+        }
+        // Accumulates negatively so that Long.MIN_VALUE can be parsed
+        long result = 0;
+        try {
+            for (int i = start; i < bytes.length; i++) {
+                int digit = bytes[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new SerializationException(
+                            "Not a number: " + new String(bytes, StandardCharsets.US_ASCII));
+                }
+                result = Math.subtractExact(Math.multiplyExact(result, 10), digit);
+            }
+            return negative ? result : Math.negateExact(result);
+        } catch (ArithmeticException e) {
+            throw new SerializationException("Number out of range: " + new String(bytes, StandardCharsets.US_ASCII), e);
+        }
+    }
+
+    @Override
+    public Class<?> getTargetType() {
+        return Long.class;
+    }
+}
@@ -4,6 +4,11 @@ import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.BucketConfiguration;
 import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
 import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.proxy.RemoteAsyncBucketBuilder;
+import io.github.bucket4j.distributed.proxy.RemoteBucketBuilder;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimization;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
 import io.github.bucket4j.redis.lettuce.cas.LettuceBasedProxyManager;
 import io.lettuce.core.RedisClient;
 import io.lettuce.core.RedisURI;
@@ -12,6 +17,7 @@ import io.lettuce.core.codec.ByteArrayCodec;
 import io.lettuce.core.codec.RedisCodec;
 import io.lettuce.core.codec.StringCodec;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -26,6 +32,12 @@ public class RateLimitConfig {
     private Long rateLimitPeriods;
     @Value("${increment-config.rate-limit.requests}")
     private Long rateLimitRequests;
+    @Value("${increment-config.rate-limit.optimization:none}")
+    private String rateLimitOptimization;
+    @Value("${increment-config.rate-limit.max-overshoot:10}")
+    private Long rateLimitMaxOvershoot;
+    @Value("${increment-config.rate-limit.sync-interval-ms:1000}")
+    private Long rateLimitSyncIntervalMillis;
 
     private RedisClient redisClient() {
         return RedisClient.create(RedisURI.builder()
@@ -37,6 +49,7 @@ public class RateLimitConfig {
     }
 
     @Bean
+    @ConditionalOnProperty(name = "increment-config.store", havingValue = "redis", matchIfMissing = true)
     public ProxyManager<String> lettuceBasedProxyManager() {
         RedisClient redisClient = redisClient();
         StatefulRedisConnection<String, byte[]> redisConnection = redisClient
@@ -48,6 +61,61 @@ public class RateLimitConfig {
                 .build();
     }
 
+    /**
+     * Keeps the buckets in the JVM when counters are kept in memory, so a single instance needs no Redis at all.
+     *
+     * @return the in-memory proxy manager
+     */
+    @Bean
+    @ConditionalOnProperty(name = "increment-config.store", havingValue = "memory")
+    public ProxyManager<String> inMemoryProxyManager() {
+        return new InMemoryProxyManager(Duration.ofMinutes(rateLimitPeriods));
+    }
+
+    /**
+     * Creates the builder of the remote buckets, applying the configured Bucket4j optimization.
+     * {@code batching} merges concurrent requests for the same bucket into one Redis round trip, while
+     * {@code delaying} and {@code predicting} synchronize with Redis only every {@code max-overshoot} tokens or
+     * {@code sync-interval-ms} milliseconds, letting a client exceed its limit by at most {@code max-overshoot} tokens
+     * per instance. Optimized buckets keep local state and must be reused across requests.
+     *
+     * @param proxyManager the proxy manager of the distributed buckets
+     * @return the remote bucket builder
+     */
+    @Bean
+    public RemoteBucketBuilder<String> remoteBucketBuilder(ProxyManager<String> proxyManager) {
+        RemoteBucketBuilder<String> builder = proxyManager.builder();
+        Optimization optimization = optimization();
+        return optimization == null ? builder : builder.withOptimization(optimization);
+    }
+
+    /**
+     * Creates the builder of the asynchronous remote buckets used by the reactive web stack, whose requests to Redis
+     * complete a future instead of blocking the calling thread. The configured optimization is applied as well.
+     *
+     * @param proxyManager the proxy manager of the distributed buckets
+     * @return the asynchronous remote bucket builder
+     */
+    @Bean
+    public RemoteAsyncBucketBuilder<String> remoteAsyncBucketBuilder(ProxyManager<String> proxyManager) {
+        RemoteAsyncBucketBuilder<String> builder = proxyManager.asAsync().builder();
+        Optimization optimization = optimization();
+        return optimization == null ? builder : builder.withOptimization(optimization);
+    }
+
+    private Optimization optimization() {
+        DelayParameters delayParameters =
+                new DelayParameters(rateLimitMaxOvershoot, Duration.ofMillis(rateLimitSyncIntervalMillis));
+        return switch (rateLimitOptimization) {
+            case "none" -> null;
+            case "batching" -> Optimizations.batching();
+            case "delaying" -> Optimizations.delaying(delayParameters);
+            case "predicting" -> Optimizations.predicting(delayParameters);
+            default -> throw new IllegalArgumentException(
+                    "Unknown rate limit optimization: " + rateLimitOptimization);
+        };
+    }
+
     @Bean
     public Supplier<BucketConfiguration> bucketConfiguration() {
         return () -> BucketConfiguration.builder()
@@ -0,0 +1,38 @@
+package com.incrementservice.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+
+/**
+ * Security configuration of the reactive web stack, with the same rules as {@link SecurityConfig}.
+ * JWTs are validated by the {@code ReactiveJwtDecoder} of {@link JwtDecoderConfig}, which shares the token cache of
+ * the servlet stack.
+ */
+@EnableWebFluxSecurity
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityConfig {
+
+    /**
+     * Configures the security filter chain.
+     *
+     * <p>This method disables CSRF protection and permits all requests to actuator endpoints
+     * while requiring authentication for all other requests.</p>
+     *
+     * @param http the {@link ServerHttpSecurity} to modify
+     * @return the configured {@link SecurityWebFilterChain}
+     */
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        return http.csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .authorizeExchange(exchanges -> exchanges.pathMatchers("/actuator/**").permitAll()
+                        .pathMatchers("/api/**").authenticated())
+                .oauth2ResourceServer(oauth2 -> oauth2.jwt(Customizer.withDefaults()))
+                .build();
+    }
+}
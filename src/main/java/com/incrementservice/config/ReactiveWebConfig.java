@@ -0,0 +1,26 @@
+package com.incrementservice.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configures the reactive web stack, selected with {@code spring.main.web-application-type: reactive}.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveWebConfig {
+
+    /**
+     * Serves the reactive stack with Reactor Netty, whose few event-loop threads (one per CPU by default) multiplex
+     * any number of keep-alive connections.
+     * Spring Boot would otherwise pick Tomcat, which is on the classpath for the servlet stack.
+     *
+     * @return the Netty web server factory
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
@@ -1,66 +1,168 @@
 package com.incrementservice.config;
 
 import com.incrementservice.listener.RedisKeyExpirationListener;
+import com.incrementservice.service.CounterKeyspace;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.listener.PatternTopic;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.listener.adapter.MessageListenerAdapter;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.time.Duration;
+import java.util.List;
+
 /**
  * Configures Redis connections and key expiration listeners.
+ * Not loaded when counters are kept in memory; Spring Boot's own Redis auto-configuration is excluded, so no Redis
+ * connection or health check is set up in that case.
  */
 @Configuration
+@ConditionalOnProperty(name = "increment-config.store", havingValue = "redis", matchIfMissing = true)
 public class RedisConfig {
 
+    /**
+     * Condition of the listener container subscribing to expiration events of a standalone Redis.
+     */
+    static final String STANDALONE_EXPIRATION_TRIGGER = "'${increment-config.flush.trigger:scheduled}' == 'expiration'"
+            + " && '${increment-config.redis.mode:standalone}' != 'cluster'";
+
     @Value("${increment-config.increment-redis-host}")
     private String incrementRedisHost;
+
+    @Value("${increment-config.redis.mode:standalone}")
+    private String redisMode = "standalone";
+
+    @Value("${increment-config.redis.cluster.nodes:}")
+    private List<String> clusterNodes = List.of();
+
+    @Value("${increment-config.redis.cluster.refresh-ms:30000}")
+    private long clusterRefreshMillis = 30000;
+
+    @Value("${increment-config.redis.pool.max-active:64}")
+    private int poolMaxActive;
+
+    @Value("${increment-config.redis.pool.max-wait-ms:1000}")
+    private long poolMaxWaitMillis;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
     /**
      * Configures the RedisTemplate.
+     * Values are 64-bit counters stored as decimal strings, the representation Redis itself uses for integers.
      *
      * @param connectionFactory the Redis connection factory
      * @return the RedisTemplate instance
      */
     @Bean
-    public RedisTemplate<String, Integer> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public RedisTemplate<String, Long> redisTemplate(RedisConnectionFactory connectionFactory) {
 
-        RedisTemplate<String, Integer> template = new RedisTemplate<>();
+        RedisTemplate<String, Long> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
         template.setKeySerializer(new StringRedisSerializer());
-        template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+        template.setValueSerializer(NumericRedisSerializer.INSTANCE);
         return template;
     }
 
+    /**
+     * Configures the ReactiveRedisTemplate used by the reactive web stack, with the same serialization as the
+     * {@link RedisTemplate}. Its commands share the multiplexed connection of the factory and never block the caller.
+     *
+     * @param connectionFactory the Redis connection factory
+     * @return the ReactiveRedisTemplate instance
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public ReactiveRedisTemplate<String, Long> reactiveRedisTemplate(
+            ReactiveRedisConnectionFactory connectionFactory) {
+        RedisSerializationContext<String, Long> serializationContext = RedisSerializationContext
+                .<String, Long>newSerializationContext(RedisSerializer.string())
+                .value(NumericRedisSerializer.INSTANCE)
+                .build();
+        return new ReactiveRedisTemplate<>(connectionFactory, serializationContext);
+    }
+
     /**
      * Creates the Redis connection factory.
+     * Pipelined commands are buffered by Lettuce and flushed to the socket once, when the pipeline is closed, instead
+     * of after every command.
+     * Single commands share one multiplexed connection, which any number of request threads can use concurrently.
+     * Pipelines need a dedicated connection; these are borrowed from a pool of {@code max-active} connections instead
+     * of being opened per pipeline, which also bounds the Redis connections of an instance running on virtual threads.
+     * In {@code cluster} mode, the factory connects to the cluster through the seed {@code cluster.nodes} and routes
+     * every command, including the commands of a pipeline, to the master owning its hash slot. The cluster topology is
+     * refreshed every {@code cluster.refresh-ms} and whenever a redirect or reconnect shows that it has changed.
      *
      * @return the RedisConnectionFactory instance
      */
     @Bean
-    public RedisConnectionFactory redisConnectionFactory() {
-        return new LettuceConnectionFactory(new RedisStandaloneConfiguration(incrementRedisHost, 6379));
+    public LettuceConnectionFactory redisConnectionFactory() {
+        GenericObjectPoolConfig<?> poolConfig = new GenericObjectPoolConfig<>();
+        poolConfig.setMaxTotal(poolMaxActive);
+        poolConfig.setMaxIdle(poolMaxActive);
+        poolConfig.setMaxWait(Duration.ofMillis(poolMaxWaitMillis));
+        LettucePoolingClientConfiguration.LettucePoolingClientConfigurationBuilder clientConfiguration =
+                LettucePoolingClientConfiguration.builder().poolConfig(poolConfig);
+        LettuceConnectionFactory connectionFactory;
+        if (CounterKeyspace.MODE_CLUSTER.equals(redisMode)) {
+            ClusterTopologyRefreshOptions topologyRefresh = ClusterTopologyRefreshOptions.builder()
+                    .enablePeriodicRefresh(Duration.ofMillis(clusterRefreshMillis))
+                    .enableAllAdaptiveRefreshTriggers()
+                    .build();
+            clientConfiguration.clientOptions(ClusterClientOptions.builder()
+                    .topologyRefreshOptions(topologyRefresh)
+                    .build());
+            connectionFactory = new LettuceConnectionFactory(
+                    new RedisClusterConfiguration(clusterNodes), clientConfiguration.build());
+        } else {
+            connectionFactory = new LettuceConnectionFactory(
+                    new RedisStandaloneConfiguration(incrementRedisHost, 6379), clientConfiguration.build());
+        }
+        connectionFactory.setPipeliningFlushPolicy(LettuceConnection.PipeliningFlushPolicy.flushOnClose());
+        return connectionFactory;
     }
 
     /**
      * Sets up the RedisMessageListenerContainer.
+     * Only created when persistence is triggered by key expiration events instead of the scheduled flush, and Redis is
+     * not a cluster; a cluster publishes expiration events per node, see {@code ClusterKeyExpirationSubscriber}.
+     * Every expiry event is processed on its own thread; with {@code spring.threads.virtual.enabled} these are virtual
+     * threads, so events waiting on Redis or the database do not hold platform threads.
      *
      * @param connectionFactory the Redis connection factory
      * @param listenerAdapter the listener adapter
      * @return the RedisMessageListenerContainer instance
      */
     @Bean
+    @ConditionalOnExpression(STANDALONE_EXPIRATION_TRIGGER)
     public RedisMessageListenerContainer container(RedisConnectionFactory connectionFactory,
                                                    MessageListenerAdapter listenerAdapter) {
 
         RedisMessageListenerContainer container = new RedisMessageListenerContainer();
         container.setConnectionFactory(connectionFactory);
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("redis-expiry-");
+        taskExecutor.setVirtualThreads(virtualThreads);
+        container.setTaskExecutor(taskExecutor);
         container.addMessageListener(listenerAdapter, new PatternTopic("__keyevent@0__:expired"));
         return container;
     }
@@ -72,6 +174,7 @@ public class RedisConfig {
      * @return the MessageListenerAdapter instance
      */
     @Bean
+    @ConditionalOnExpression(STANDALONE_EXPIRATION_TRIGGER)
     public MessageListenerAdapter listenerAdapter(RedisKeyExpirationListener listener) {
 
         return new MessageListenerAdapter(listener);
@@ -1,5 +1,6 @@
 package com.incrementservice.config;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.Customizer;
@@ -11,9 +12,12 @@ import org.springframework.security.web.SecurityFilterChain;
 /**
  * Security configuration class that defines security settings for the application. This class enables web security and
  * configures HTTP security, including CSRF protection and request authorization.
+ * The reactive web stack is secured by {@link ReactiveSecurityConfig} instead.
+ * JWTs are validated by the {@link CachingJwtDecoder} of {@link JwtDecoderConfig}.
  */
 @EnableWebSecurity
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class SecurityConfig {
 
     /**
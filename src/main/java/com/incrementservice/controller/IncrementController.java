@@ -1,11 +1,20 @@
 package com.incrementservice.controller;
 
+import com.incrementservice.dto.IncrementBatchRequest;
+import com.incrementservice.dto.IncrementBatchResponse;
 import com.incrementservice.dto.IncrementRequest;
+import com.incrementservice.dto.IncrementStreamResponse;
 import com.incrementservice.service.IncrementService;
+import com.incrementservice.service.IncrementStreamService;
+import com.incrementservice.service.RateLimitService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -13,6 +22,12 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * This class serves as the entry point of the application.
  * It handles incoming requests and invokes service methods to increment the value associated with a specified key.
@@ -20,12 +35,18 @@ import org.springframework.web.bind.annotation.RestController;
  */
 @RestController
 @RequestMapping("/api")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 @Validated
 @Slf4j
 public class IncrementController {
 
     private final IncrementService service;
+    private final IncrementStreamService streamService;
+    private final RateLimitService rateLimitService;
+
+    @Value("${increment-config.batch.max-items:10000}")
+    private int maxBatchItems;
 
     /**
      * Increments a value in Redis and returns accepted status.
@@ -35,12 +56,94 @@ public class IncrementController {
      */
     @PostMapping("/increment")
     public ResponseEntity<Void> incrementValue(@Valid @RequestBody IncrementRequest request) {
-
-        log.info("Received request to increment value: key = {}, value = {}", request.getKey(), request.getValue());
+        log.debug("Received request to increment value: key = {}, value = {}", request.getKey(), request.getValue());
 
         service.saveOrUpdateDataInRedis(request.getKey(), request.getValue());
 
-        log.info("Returning response: HTTP {}", HttpStatus.ACCEPTED);
         return ResponseEntity.status(HttpStatus.ACCEPTED).build();
     }
+
+    /**
+     * Increments a batch of values in Redis and returns accepted status.
+     * Values for duplicate keys are summed before being sent to Redis in a single pipeline; a batch whose sum for a key
+     * overflows a 64-bit value is rejected as a whole. Redis may fail some keys
+     * of the pipeline and apply the others; the failed keys are then listed in the response, and only the items of
+     * those keys should be retried, since the increments of all other keys were applied.
+     *
+     * @param batch       the request body containing the keys and values
+     * @param httpRequest the HTTP request, used to charge the client for every item when configured
+     * @return HTTP status ACCEPTED, BAD_REQUEST if the batch is empty, too large or overflows, TOO_MANY_REQUESTS if the
+     * client has not enough tokens for all items, or SERVICE_UNAVAILABLE with the failed keys if only some keys were
+     * written
+     */
+    @PostMapping("/increment/batch")
+    public ResponseEntity<IncrementBatchResponse> incrementBatch(@Valid @RequestBody IncrementBatchRequest batch,
+                                                                 HttpServletRequest httpRequest) {
+        List<IncrementRequest> requests = batch.getItems();
+        if (requests == null || requests.isEmpty() || requests.size() > maxBatchItems) {
+            log.warn("Rejecting batch, allowed size is 1 to {} items", maxBatchItems);
+            return ResponseEntity.badRequest().build();
+        }
+
+        log.debug("Received request to increment batch: items = {}", requests.size());
+
+        if (rateLimitService.isCountBatchItems()
+                && !rateLimitService.tryConsume(httpRequest.getRemoteAddr(), requests.size())) {
+            log.debug("Batch rate limited: items = {}, client IP = {}", requests.size(), httpRequest.getRemoteAddr());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+
+        Map<String, Long> deltas = new LinkedHashMap<>();
+        try {
+            for (IncrementRequest request : requests) {
+                deltas.merge(request.getKey(), request.getValue(), Math::addExact);
+            }
+        } catch (ArithmeticException e) {
+            log.warn("Rejecting batch, the sum of the values of a key overflows");
+            return ResponseEntity.badRequest().build();
+        }
+        Map<String, Long> failed = service.saveOrUpdateBatchInRedis(deltas);
+        if (!failed.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(IncrementBatchResponse.builder()
+                    .failedKeys(new ArrayList<>(failed.keySet()))
+                    .build());
+        }
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+    }
+
+    /**
+     * Increments the values of a stream of newline-delimited JSON records and returns a summary.
+     * The body is read incrementally and written to Redis in windows, so it may be arbitrarily large. When batch items
+     * are counted individually, every window is charged its number of records before it is written.
+     *
+     * @param httpRequest the HTTP request, whose body holds one {@code {"key","value"}} record per line
+     * @return HTTP status ACCEPTED, BAD_REQUEST if the body is not well-formed JSON, TOO_MANY_REQUESTS if the client
+     * ran out of tokens, or SERVICE_UNAVAILABLE if some keys of a window could not be written; the summary counts the
+     * records written before the stream ended and lists the failed keys, whose last read records should be retried
+     * along with the records after them
+     * @exception IOException if the body cannot be read
+     */
+    @PostMapping(value = "/increment/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<IncrementStreamResponse> incrementStream(HttpServletRequest httpRequest) throws IOException {
+        String clientIp = httpRequest.getRemoteAddr();
+        log.debug("Received request to increment stream: client IP = {}", clientIp);
+
+        IncrementStreamService.StreamResult result = streamService.ingest(httpRequest.getInputStream(),
+                records -> !rateLimitService.isCountBatchItems() || rateLimitService.tryConsume(clientIp, records));
+
+        HttpStatus status = switch (result.outcome()) {
+            case COMPLETED -> HttpStatus.ACCEPTED;
+            case RATE_LIMITED -> HttpStatus.TOO_MANY_REQUESTS;
+            case MALFORMED -> HttpStatus.BAD_REQUEST;
+            case FAILED -> HttpStatus.SERVICE_UNAVAILABLE;
+        };
+        log.debug("Ingested stream: accepted = {}, rejected = {}", result.accepted(), result.rejected());
+        return ResponseEntity.status(status).body(IncrementStreamResponse.builder()
+                .accepted(result.accepted())
+                .rejected(result.rejected())
+                .failed(result.failed())
+                .failedKeys(result.failedKeys())
+                .build());
+    }
 }
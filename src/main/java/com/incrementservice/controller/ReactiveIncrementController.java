@@ -0,0 +1,47 @@
+package com.incrementservice.controller;
+
+import com.incrementservice.dto.IncrementRequest;
+import com.incrementservice.service.ReactiveIncrementService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Handles API requests for incrementing values on the reactive web stack, selected with
+ * {@code spring.main.web-application-type: reactive}. Requests are served by a few event-loop threads, which are
+ * released while an increment waits for Redis.
+ */
+@RestController
+@RequestMapping("/api")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@Validated
+@Slf4j
+public class ReactiveIncrementController {
+
+    private final ReactiveIncrementService service;
+
+    /**
+     * Increments a value in Redis and returns accepted status.
+     *
+     * @param request the request body containing the key and value
+     * @return HTTP status ACCEPTED, emitted once the increment is accepted
+     */
+    @PostMapping("/increment")
+    public Mono<ResponseEntity<Void>> incrementValue(@Valid @RequestBody IncrementRequest request) {
+
+        log.debug("Received request to increment value: key = {}, value = {}", request.getKey(), request.getValue());
+
+        return service.saveOrUpdateData(request.getKey(), request.getValue())
+                .then(Mono.fromSupplier(() -> ResponseEntity.status(HttpStatus.ACCEPTED).<Void>build()));
+    }
+}
@@ -0,0 +1,72 @@
+package com.incrementservice.controller;
+
+import com.incrementservice.dto.SumResponse;
+import com.incrementservice.service.SumQueryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Handles API requests for reading the current values of keys.
+ */
+@RestController
+@RequestMapping("/api")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+@Slf4j
+public class SumController {
+
+    private final SumQueryService sumQueryService;
+
+    @Value("${increment-config.read.max-keys:1000}")
+    private int maxKeys;
+
+    /**
+     * Returns the current value of a key.
+     *
+     * @param key the key to read
+     * @return the key and its value, which is 0 if the key has never been incremented
+     */
+    @GetMapping("/sum/{key}")
+    public ResponseEntity<SumResponse> getSum(@PathVariable String key) {
+        log.debug("Received request to read sum: key = {}", key);
+        return ResponseEntity.ok(SumResponse.builder().key(key).sum(sumQueryService.getSum(key)).build());
+    }
+
+    /**
+     * Returns the current values of several keys.
+     *
+     * @param keys the keys to read, either comma separated or as repeated parameters
+     * @return the keys and their values in request order without duplicates, or BAD_REQUEST if there are no keys or too
+     * many keys
+     */
+    @GetMapping("/sums")
+    public ResponseEntity<List<SumResponse>> getSums(@RequestParam List<String> keys) {
+        Set<String> distinctKeys = new LinkedHashSet<>(keys);
+        distinctKeys.removeIf(String::isBlank);
+        if (distinctKeys.isEmpty() || distinctKeys.size() > maxKeys) {
+            log.warn("Rejecting sum read, allowed size is 1 to {} keys", maxKeys);
+            return ResponseEntity.badRequest().build();
+        }
+
+        log.debug("Received request to read sums: keys = {}", distinctKeys.size());
+
+        Map<String, Long> sums = sumQueryService.getSums(distinctKeys);
+        List<SumResponse> response = sums.entrySet().stream()
+                .map(entry -> SumResponse.builder().key(entry.getKey()).sum(entry.getValue()).build())
+                .toList();
+        return ResponseEntity.ok(response);
+    }
+}
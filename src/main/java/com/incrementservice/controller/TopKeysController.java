@@ -0,0 +1,70 @@
+package com.incrementservice.controller;
+
+import com.incrementservice.dto.TopKeyResponse;
+import com.incrementservice.service.TopKeysTracker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Handles API requests for the most incremented keys.
+ */
+@RestController
+@RequestMapping("/api")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+@Slf4j
+public class TopKeysController {
+
+    private final TopKeysTracker topKeysTracker;
+
+    @Value("${increment-config.top-keys.window-ms:60000}")
+    private long windowMillis;
+
+    /**
+     * Returns the most incremented keys of a recent time window.
+     * The window is rounded up to whole tracking windows, and the current, partial one is added on top of them as far
+     * as the tracked history allows, so that a window right after a rotation does not only cover the nearly empty
+     * current one.
+     *
+     * @param k      the number of keys, at most {@code increment-config.top-keys.capacity}
+     * @param window the length of the window, like {@code 5m} or {@code PT5M}, at most the tracked history
+     * @return the keys and their estimated increments in descending order, BAD_REQUEST if {@code k} or {@code window}
+     * is out of range, or NOT_FOUND if top keys are not tracked
+     */
+    @GetMapping("/top")
+    public ResponseEntity<List<TopKeyResponse>> getTopKeys(@RequestParam(defaultValue = "10") int k,
+                                                           @RequestParam(defaultValue = "1m") String window) {
+        if (!topKeysTracker.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        long windows;
+        try {
+            Duration duration = DurationStyle.detectAndParse(window);
+            windows = (duration.toMillis() + windowMillis - 1) / windowMillis;
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            windows = 0;
+        }
+        if (k < 1 || k > topKeysTracker.getCapacity() || windows < 1 || windows > topKeysTracker.getWindows()) {
+            log.warn("Rejecting top keys read, allowed are 1 to {} keys over at most {} ms",
+                    topKeysTracker.getCapacity(), topKeysTracker.getWindows() * windowMillis);
+            return ResponseEntity.badRequest().build();
+        }
+
+        int withCurrent = (int) Math.min(windows + 1, topKeysTracker.getWindows());
+        List<TopKeyResponse> response = topKeysTracker.top(k, withCurrent).entrySet().stream()
+                .map(entry -> TopKeyResponse.builder().key(entry.getKey()).increments(entry.getValue()).build())
+                .toList();
+        return ResponseEntity.ok(response);
+    }
+}
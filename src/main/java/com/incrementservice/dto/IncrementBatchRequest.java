@@ -0,0 +1,33 @@
+package com.incrementservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import jakarta.validation.Valid;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Represents the request data for incrementing a batch of values in Redis.
+ * It is read from and written as a plain JSON array of {@link IncrementRequest} items.
+ */
+@Data
+public class IncrementBatchRequest {
+
+    /**
+     * The items to increment.
+     */
+    @Valid
+    @JsonValue
+    private final List<IncrementRequest> items;
+
+    /**
+     * Creates a batch request from the JSON array of items.
+     *
+     * @param items the items to increment
+     */
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public IncrementBatchRequest(List<IncrementRequest> items) {
+        this.items = items;
+    }
+}
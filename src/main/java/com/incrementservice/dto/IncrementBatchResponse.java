@@ -0,0 +1,19 @@
+package com.incrementservice.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Represents the outcome of a batch of increments that was only partially written.
+ */
+@Data
+@Builder
+public class IncrementBatchResponse {
+
+    /**
+     * The keys whose increments were not written; the increments of all other keys were.
+     */
+    private List<String> failedKeys;
+}
@@ -22,5 +22,5 @@ public class IncrementRequest {
      * The value to increment.
      */
     @NotNull(message = "Value is mandatory")
-    private Integer value;
+    private Long value;
 }
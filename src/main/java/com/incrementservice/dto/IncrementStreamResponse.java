@@ -0,0 +1,34 @@
+package com.incrementservice.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Represents the outcome of a streamed batch of increments.
+ */
+@Data
+@Builder
+public class IncrementStreamResponse {
+
+    /**
+     * The number of records written to Redis.
+     */
+    private long accepted;
+
+    /**
+     * The number of records skipped because they are not valid increment requests.
+     */
+    private long rejected;
+
+    /**
+     * The number of records that could not be written, the last ones read of the failed keys.
+     */
+    private long failed;
+
+    /**
+     * The keys of the records that could not be written, empty unless some keys of the last window failed.
+     */
+    private List<String> failedKeys;
+}
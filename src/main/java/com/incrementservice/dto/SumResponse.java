@@ -0,0 +1,22 @@
+package com.incrementservice.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Represents the current value of a key.
+ */
+@Data
+@Builder
+public class SumResponse {
+
+    /**
+     * The Redis key.
+     */
+    private String key;
+
+    /**
+     * The persisted sum plus the increments that are not persisted yet.
+     */
+    private long sum;
+}
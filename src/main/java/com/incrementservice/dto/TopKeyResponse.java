@@ -0,0 +1,22 @@
+package com.incrementservice.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Represents one of the most incremented keys of a time window.
+ */
+@Data
+@Builder
+public class TopKeyResponse {
+
+    /**
+     * The key.
+     */
+    private String key;
+
+    /**
+     * The estimated number of increments of the key in the window, never lower than the actual number.
+     */
+    private long increments;
+}
@@ -25,6 +25,6 @@ public class SumEntity {
     private String key;
 
     @Column(name = "sum")
-    private Integer sum;
+    private Long sum;
 
 }
@@ -0,0 +1,65 @@
+package com.incrementservice.filter;
+
+import com.incrementservice.service.AdaptiveConcurrencyLimiter;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Sheds increment requests of the servlet stack beyond the limit of the {@link AdaptiveConcurrencyLimiter}, answering
+ * them with 503 and a {@code Retry-After} header.
+ * Runs after the {@link RateLimitFilter}, so requests rejected per client do not take a slot.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "increment-config.load-shedding.enabled", havingValue = "true")
+@Order(2)
+@RequiredArgsConstructor
+@Slf4j
+public class LoadSheddingFilter implements Filter {
+
+    /**
+     * Prefix of the paths of the increment endpoints.
+     */
+    public static final String INCREMENT_PATH = "/api/increment";
+
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
+            throws IOException, ServletException {
+        String requestURI = ((HttpServletRequest) servletRequest).getRequestURI();
+        if (!requestURI.startsWith(INCREMENT_PATH)) {
+            filterChain.doFilter(servletRequest, servletResponse);
+            return;
+        }
+
+        if (!concurrencyLimiter.tryAcquire()) {
+            log.debug("Request shed: URI = {}, limit = {}", requestURI, concurrencyLimiter.getLimit());
+            HttpServletResponse httpResponse = (HttpServletResponse) servletResponse;
+            httpResponse.setContentType("text/plain");
+            httpResponse.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            httpResponse.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(concurrencyLimiter.getRetryAfterSeconds()));
+            httpResponse.getWriter().append("Service overloaded");
+            return;
+        }
+        try {
+            filterChain.doFilter(servletRequest, servletResponse);
+        } finally {
+            concurrencyLimiter.release();
+        }
+    }
+}
@@ -1,9 +1,6 @@
 package com.incrementservice.filter;
 
-import io.github.bucket4j.Bucket;
-import io.github.bucket4j.BucketConfiguration;
-import io.github.bucket4j.ConsumptionProbe;
-import io.github.bucket4j.distributed.proxy.ProxyManager;
+import com.incrementservice.service.RateLimitService;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -13,24 +10,32 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
-import java.util.function.Supplier;
 
 @Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @Order(1)
 @Slf4j
 public class RateLimitFilter implements Filter {
 
-    @Autowired
-    Supplier<BucketConfiguration> bucketConfiguration;
+    /**
+     * Path of the batch endpoint, which is charged by the controller when batch items are counted individually.
+     */
+    public static final String BATCH_PATH = "/api/increment/batch";
+
+    /**
+     * Path of the streaming endpoint, whose windows are charged by the controller like batch items.
+     */
+    public static final String STREAM_PATH = "/api/increment/stream";
 
     @Autowired
-    ProxyManager<String> proxyManager;
+    RateLimitService rateLimitService;
 
     // List of paths to exclude from rate limiting
     private final List<String> excludedPaths = Arrays.asList(
@@ -44,29 +49,27 @@ public class RateLimitFilter implements Filter {
     public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain) throws IOException, ServletException {
         HttpServletRequest httpRequest = (HttpServletRequest) servletRequest;
         String requestURI = httpRequest.getRequestURI();
-        String method = httpRequest.getMethod();
         String clientIp = httpRequest.getRemoteAddr();
 
-        log.info("Incoming request: method = {}, URI = {}, client IP = {}", method, requestURI, clientIp);
-
         // Check if the request URI contains any of the excluded paths
         if (excludedPaths.stream().anyMatch(requestURI::contains)) {
             // Skip rate limiting for excluded endpoints
-            log.info("Rate limiting skipped for URI: {}", requestURI);
             filterChain.doFilter(servletRequest, servletResponse);
             return;
         }
 
-        Bucket bucket = proxyManager.builder().build(clientIp, bucketConfiguration);
-        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
-
-        log.debug("Remaining tokens for IP {}: {}", clientIp, probe.getRemainingTokens());
+        // Batch items are charged by the controller once the body has been read
+        if (rateLimitService.isCountBatchItems()
+                && (BATCH_PATH.equals(requestURI) || STREAM_PATH.equals(requestURI))) {
+            filterChain.doFilter(servletRequest, servletResponse);
+            return;
+        }
 
-        if (probe.isConsumed()) {
-            log.info("Request allowed: method = {}, URI = {}, client IP = {}", method, requestURI, clientIp);
+        // Requests are logged by the RequestLoggingFilter, which logs every rate limited one
+        if (rateLimitService.tryConsume(clientIp, 1)) {
             filterChain.doFilter(servletRequest, servletResponse);
         } else {
-            log.warn("Request rate limited: method = {}, URI = {}, client IP = {}", method, requestURI, clientIp);
+            log.debug("Request rate limited: URI = {}, client IP = {}", requestURI, clientIp);
             HttpServletResponse httpResponse = (HttpServletResponse) servletResponse;
             httpResponse.setContentType("text/plain");
             httpResponse.setStatus(429);
@@ -0,0 +1,59 @@
+package com.incrementservice.filter;
+
+import com.incrementservice.service.AdaptiveConcurrencyLimiter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sheds increment requests of the reactive web stack like {@link LoadSheddingFilter} does for the servlet stack.
+ * A slot is taken when the chain is subscribed to and released when it completes, fails or is cancelled.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnProperty(name = "increment-config.load-shedding.enabled", havingValue = "true")
+@Order(2)
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveLoadSheddingFilter implements WebFilter {
+
+    private static final byte[] SERVICE_OVERLOADED = "Service overloaded".getBytes(StandardCharsets.UTF_8);
+
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String requestURI = exchange.getRequest().getPath().value();
+        if (!requestURI.startsWith(LoadSheddingFilter.INCREMENT_PATH)) {
+            return chain.filter(exchange);
+        }
+
+        return Mono.defer(() -> {
+            if (concurrencyLimiter.tryAcquire()) {
+                return chain.filter(exchange).doFinally(signal -> concurrencyLimiter.release());
+            }
+            log.debug("Request shed: URI = {}, limit = {}", requestURI, concurrencyLimiter.getLimit());
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().setContentType(MediaType.TEXT_PLAIN);
+            response.getHeaders()
+                    .set(HttpHeaders.RETRY_AFTER, String.valueOf(concurrencyLimiter.getRetryAfterSeconds()));
+            DataBuffer body = response.bufferFactory().wrap(SERVICE_OVERLOADED);
+            return response.writeWith(Mono.just(body));
+        });
+    }
+}
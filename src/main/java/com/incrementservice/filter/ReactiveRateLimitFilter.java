@@ -0,0 +1,70 @@
+package com.incrementservice.filter;
+
+import com.incrementservice.service.RateLimitService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Rate limits requests of the reactive web stack like {@link RateLimitFilter} does for the servlet stack.
+ * Tokens are consumed through the asynchronous Bucket4j proxies, so the event-loop thread is released while Redis is
+ * consulted.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Order(1)
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveRateLimitFilter implements WebFilter {
+
+    private static final byte[] TOO_MANY_REQUESTS = "Too many requests".getBytes(StandardCharsets.UTF_8);
+
+    private final RateLimitService rateLimitService;
+
+    // List of paths to exclude from rate limiting
+    private final List<String> excludedPaths = List.of(
+            "/actuator/health",
+            "/actuator/info",
+            "/actuator/metrics",
+            "/actuator/prometheus"
+    );
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String requestURI = request.getPath().value();
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        String clientIp = remoteAddress == null ? "unknown" : remoteAddress.getAddress().getHostAddress();
+
+        if (excludedPaths.stream().anyMatch(requestURI::contains)) {
+            return chain.filter(exchange);
+        }
+
+        return Mono.fromFuture(() -> rateLimitService.tryConsumeAsync(clientIp, 1)).flatMap(consumed -> {
+            if (consumed) {
+                return chain.filter(exchange);
+            }
+            log.debug("Request rate limited: URI = {}, client IP = {}", requestURI, clientIp);
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+            response.getHeaders().setContentType(MediaType.TEXT_PLAIN);
+            DataBuffer body = response.bufferFactory().wrap(TOO_MANY_REQUESTS);
+            return response.writeWith(Mono.just(body));
+        });
+    }
+}
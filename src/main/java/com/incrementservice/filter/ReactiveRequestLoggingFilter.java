@@ -0,0 +1,53 @@
+package com.incrementservice.filter;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Logs a summary of every request of the reactive web stack through the {@link RequestLogger}, like
+ * {@link RequestLoggingFilter} does for the servlet stack.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class ReactiveRequestLoggingFilter implements WebFilter {
+
+    private final RequestLogger requestLogger;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doOnSuccess(done -> log(exchange, status(exchange), start))
+                .doOnError(error -> log(exchange, HttpStatus.INTERNAL_SERVER_ERROR.value(), start));
+    }
+
+    private void log(ServerWebExchange exchange, int status, long start) {
+        if (!requestLogger.isLogged(status)) {
+            return;
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        String clientIp = remoteAddress == null ? "unknown" : remoteAddress.getAddress().getHostAddress();
+        requestLogger.log(request.getMethod().name(), request.getPath().value(), status, clientIp,
+                System.nanoTime() - start);
+    }
+
+    private static int status(ServerWebExchange exchange) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        return status == null ? HttpStatus.OK.value() : status.value();
+    }
+}
@@ -0,0 +1,64 @@
+package com.incrementservice.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes one summary line per request, replacing the log lines of the individual processing steps.
+ * Failed requests, i.e. requests answered with a 4xx or 5xx status including rate limited ones, are always logged;
+ * successful requests are sampled, one in {@code sample-rate} on average, or not at all if it is 0. Filters ask
+ * {@link #isLogged(int)} before collecting the details of a request, so a request that is not sampled costs a random
+ * number, and the message is only formatted if its level is enabled.
+ */
+@Component
+@Slf4j
+public class RequestLogger {
+
+    private final int sampleRate;
+
+    /**
+     * Creates the logger.
+     *
+     * @param sampleRate the average number of successful requests per logged one, 1 to log all, 0 to log none
+     */
+    public RequestLogger(@Value("${increment-config.logging.requests.sample-rate:100}") int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Decides whether a completed request is logged: failed requests always are, successful ones if sampled.
+     *
+     * @param status the response status
+     * @return {@code true} if the request should be passed to {@link #log(String, String, int, String, long)}
+     */
+    public boolean isLogged(int status) {
+        return status >= 400
+                || sampleRate == 1
+                || sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+    }
+
+    /**
+     * Logs the summary of a completed request, at WARN level if it failed.
+     *
+     * @param method        the HTTP method
+     * @param uri           the request URI
+     * @param status        the response status
+     * @param clientIp      the client IP address
+     * @param durationNanos the time taken to handle the request, in nanoseconds
+     */
+    public void log(String method, String uri, int status, String clientIp, long durationNanos) {
+        if (status >= 400) {
+            if (log.isWarnEnabled()) {
+                log.warn("Request failed: method = {}, URI = {}, status = {}, client IP = {}, duration = {} us",
+                        method, uri, status, clientIp, TimeUnit.NANOSECONDS.toMicros(durationNanos));
+            }
+        } else if (log.isInfoEnabled()) {
+            log.info("Request completed: method = {}, URI = {}, status = {}, client IP = {}, duration = {} us",
+                    method, uri, status, clientIp, TimeUnit.NANOSECONDS.toMicros(durationNanos));
+        }
+    }
+}
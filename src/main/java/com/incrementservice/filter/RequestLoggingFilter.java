@@ -0,0 +1,47 @@
+package com.incrementservice.filter;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Logs a summary of every request of the servlet stack through the {@link RequestLogger}.
+ * Runs before the security and rate limit filters, so rejected requests are logged too; a request failing with an
+ * exception is logged with status 500.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class RequestLoggingFilter implements Filter {
+
+    private final RequestLogger requestLogger;
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
+            throws IOException, ServletException {
+        long start = System.nanoTime();
+        int status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        try {
+            filterChain.doFilter(servletRequest, servletResponse);
+            status = ((HttpServletResponse) servletResponse).getStatus();
+        } finally {
+            if (requestLogger.isLogged(status)) {
+                HttpServletRequest httpRequest = (HttpServletRequest) servletRequest;
+                requestLogger.log(httpRequest.getMethod(), httpRequest.getRequestURI(), status,
+                        httpRequest.getRemoteAddr(), System.nanoTime() - start);
+            }
+        }
+    }
+}
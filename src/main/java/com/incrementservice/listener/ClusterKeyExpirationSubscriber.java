@@ -0,0 +1,122 @@
+package com.incrementservice.listener;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Subscribes to key expiration events on every master of a Redis Cluster.
+ * A cluster node only publishes keyspace events of the keys it holds, and does not propagate them to the other nodes,
+ * so one listener container is connected directly to each master. The masters are read from the cluster topology every
+ * {@code cluster.refresh-ms}, which subscribes new masters after a failover or resharding and drops removed ones.
+ */
+@Component
+@ConditionalOnExpression("'${increment-config.store:redis}' == 'redis'"
+        + " && '${increment-config.flush.trigger:scheduled}' == 'expiration'"
+        + " && '${increment-config.redis.mode:standalone}' == 'cluster'")
+@Slf4j
+public class ClusterKeyExpirationSubscriber {
+
+    private final RedisConnectionFactory connectionFactory;
+    private final RedisKeyExpirationListener listener;
+    private final boolean virtualThreads;
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the subscriber.
+     *
+     * @param connectionFactory the cluster connection factory used to read the topology
+     * @param listener          the listener processing expired keys
+     * @param virtualThreads    whether expiry events are processed on virtual threads
+     */
+    public ClusterKeyExpirationSubscriber(RedisConnectionFactory connectionFactory,
+                                          RedisKeyExpirationListener listener,
+                                          @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.connectionFactory = connectionFactory;
+        this.listener = listener;
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * Subscribes to the masters that are not subscribed yet and unsubscribes from nodes that are no longer masters.
+     */
+    @Scheduled(fixedDelayString = "${increment-config.redis.cluster.refresh-ms:30000}")
+    public void refreshSubscriptions() {
+        Set<String> masters = new HashSet<>();
+        try (RedisClusterConnection connection = connectionFactory.getClusterConnection()) {
+            for (RedisClusterNode node : connection.clusterGetNodes()) {
+                if (node.isMaster() && node.isConnected()) {
+                    String address = node.getHost() + ":" + node.getPort();
+                    masters.add(address);
+                    subscriptions.computeIfAbsent(address, a -> subscribe(node.getHost(), node.getPort()));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to read the Redis Cluster topology, keeping {} subscriptions", subscriptions.size(), e);
+            return;
+        }
+        subscriptions.entrySet().removeIf(subscription -> {
+            if (masters.contains(subscription.getKey())) {
+                return false;
+            }
+            subscription.getValue().close();
+            log.info("Unsubscribed from expiration events of former master {}", subscription.getKey());
+            return true;
+        });
+    }
+
+    /**
+     * Closes all subscriptions.
+     */
+    @PreDestroy
+    public void stop() {
+        subscriptions.values().forEach(Subscription::close);
+        subscriptions.clear();
+    }
+
+    private Subscription subscribe(String host, int port) {
+        LettuceConnectionFactory nodeConnectionFactory =
+                new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port));
+        nodeConnectionFactory.afterPropertiesSet();
+        nodeConnectionFactory.start();
+
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(nodeConnectionFactory);
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("redis-expiry-");
+        taskExecutor.setVirtualThreads(virtualThreads);
+        container.setTaskExecutor(taskExecutor);
+        container.addMessageListener(listener, new PatternTopic("__keyevent@0__:expired"));
+        container.afterPropertiesSet();
+        container.start();
+        log.info("Subscribed to expiration events of master {}:{}", host, port);
+        return new Subscription(nodeConnectionFactory, container);
+    }
+
+    private record Subscription(LettuceConnectionFactory connectionFactory, RedisMessageListenerContainer container) {
+
+        private void close() {
+            try {
+                container.destroy();
+            } catch (Exception e) {
+                log.warn("Failed to stop expiration listener container", e);
+            }
+            connectionFactory.destroy();
+        }
+    }
+}
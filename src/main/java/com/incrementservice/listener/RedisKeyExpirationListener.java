@@ -1,21 +1,26 @@
 package com.incrementservice.listener;
 
-import com.incrementservice.service.IncrementService;
+import com.incrementservice.service.FlushService;
+import com.incrementservice.service.RedisCounterStore;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.data.redis.connection.Message;
 import org.springframework.data.redis.connection.MessageListener;
 import org.springframework.stereotype.Component;
 
 /**
  * Handles Redis key expiration events.
+ * An expired counter is flushed; an expired drain owner key flushes its counter, which takes over the value left
+ * pending by a drain that never settled. Expired shadow and pending keys are ignored.
  */
 @Component
+@ConditionalOnProperty(name = "increment-config.store", havingValue = "redis", matchIfMissing = true)
 @AllArgsConstructor
 @Slf4j
 public class RedisKeyExpirationListener implements MessageListener {
 
-    private final IncrementService incrementService;
+    private final FlushService flushService;
 
     /**
      * Processes expired Redis keys.
@@ -28,8 +33,11 @@ public class RedisKeyExpirationListener implements MessageListener {
 
         String expiredKey = message.toString();
 
-        log.info("Processing expired Redis key: {}", expiredKey);
+        log.debug("Processing expired Redis key: {}", expiredKey);
 
-        incrementService.processExpiredKey(expiredKey);
+        String counterKey = RedisCounterStore.counterKeyOfExpiredKey(expiredKey);
+        if (counterKey != null) {
+            flushService.processExpiredKey(counterKey);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,477 @@
+package com.incrementservice.listener;
+
+import com.incrementservice.service.IncrementService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepts increments over a compact binary TCP protocol, for high-volume emitters inside the trusted network that
+ * should not pay for HTTP, JSON and a JWT per increment.
+ * <p>
+ * Every message is a frame of a 4-byte big-endian length followed by that many bytes. The first frame of a connection
+ * holds the UTF-8 {@code auth-token}; every later frame holds records of a 2-byte unsigned key length, the UTF-8 key
+ * and an 8-byte delta. Every frame is answered in order with a 1-byte status and the 4-byte number of records it held:
+ * {@link #STATUS_OK}, {@link #STATUS_BUSY} if {@code max-in-flight} frames are already being written and the frame was
+ * dropped, so the client should retry it later, {@link #STATUS_FAILED} if the counter store failed, in which case some
+ * records may have been applied, {@link #STATUS_INVALID} if a key is blank or the sum of the deltas of a key
+ * overflows, or {@link #STATUS_UNAUTHORIZED} before the connection is closed. A frame that is not well-formed closes
+ * the connection, and so does not sending a valid token within {@code auth-timeout-ms} of connecting.
+ * </p>
+ * <p>
+ * A single selector thread reads all connections into reused buffers and decodes frames. A connection only gets its
+ * direct frame buffer of {@code max-frame-bytes} once authenticated; until then it is read into a heap buffer the size
+ * of the token frame, and longer frames are rejected as invalid tokens. The records of a frame are summed per key
+ * and written through {@link IncrementService#saveOrUpdateBatchInRedis(Map)} on a virtual thread. A connection is
+ * not read while its frame is being written, so clients pipelining frames are slowed down by TCP flow control, and a
+ * saturated pipeline is reported with {@link #STATUS_BUSY} instead of being queued.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "increment-config.tcp.enabled", havingValue = "true")
+@Slf4j
+public class TcpIncrementListener {
+
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_BUSY = 1;
+    public static final byte STATUS_FAILED = 2;
+    public static final byte STATUS_INVALID = 3;
+    public static final byte STATUS_UNAUTHORIZED = 4;
+
+    private static final int HEADER_BYTES = Integer.BYTES;
+    private static final int REPLY_BYTES = 1 + Integer.BYTES;
+
+    private final IncrementService incrementService;
+    private final int port;
+    private final byte[] authToken;
+    private final int maxFrameBytes;
+    private final int maxKeyBytes;
+    private final int maxConnections;
+    private final long authTimeoutMillis;
+    private final Semaphore inFlight;
+    private final Queue<Connection> completed = new ConcurrentLinkedQueue<>();
+    // Connections in order of their authentication deadline; only touched by the selector thread
+    private final Queue<Connection> unauthenticated = new ArrayDeque<>();
+    private final ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor();
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread selectorThread;
+    private volatile boolean running;
+    private int connections;
+
+    /**
+     * Creates the listener.
+     *
+     * @param incrementService  the service the increments are written through
+     * @param port              the port to listen on, 0 for an ephemeral port
+     * @param authToken         the token clients authenticate with
+     * @param maxFrameBytes     the maximum length of a frame
+     * @param maxKeyBytes       the maximum length of a key in UTF-8
+     * @param maxConnections    the maximum number of open connections
+     * @param maxInFlight       the maximum number of frames written concurrently
+     * @param authTimeoutMillis the time a connection has to authenticate before it is closed, in milliseconds
+     */
+    public TcpIncrementListener(IncrementService incrementService,
+                                @Value("${increment-config.tcp.port:3334}") int port,
+                                @Value("${increment-config.tcp.auth-token:}") String authToken,
+                                @Value("${increment-config.tcp.max-frame-bytes:65536}") int maxFrameBytes,
+                                @Value("${increment-config.tcp.max-key-bytes:1024}") int maxKeyBytes,
+                                @Value("${increment-config.tcp.max-connections:1024}") int maxConnections,
+                                @Value("${increment-config.tcp.max-in-flight:64}") int maxInFlight,
+                                @Value("${increment-config.tcp.auth-timeout-ms:5000}") long authTimeoutMillis) {
+        if (authToken.isBlank()) {
+            throw new IllegalArgumentException("increment-config.tcp.auth-token must be set to enable the listener");
+        }
+        this.incrementService = incrementService;
+        this.port = port;
+        this.authToken = authToken.getBytes(StandardCharsets.UTF_8);
+        this.maxFrameBytes = maxFrameBytes;
+        this.maxKeyBytes = maxKeyBytes;
+        this.maxConnections = maxConnections;
+        this.authTimeoutMillis = authTimeoutMillis;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Binds the port and starts the selector thread.
+     *
+     * @exception IOException if the port cannot be bound
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        selectorThread = Thread.ofPlatform().name("increment-tcp").daemon().start(this::run);
+        log.info("Listening for TCP increments on port {}", getPort());
+    }
+
+    /**
+     * Stops accepting and reading, waits for the frames being written and closes all connections.
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writers.close();
+        for (SelectionKey key : selector.keys()) {
+            closeQuietly(key);
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            log.warn("Failed to close TCP selector", e);
+        }
+    }
+
+    /**
+     * Returns the bound port.
+     *
+     * @return the local port of the listener
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select(closeUnauthenticated());
+                Connection connection;
+                while ((connection = completed.poll()) != null) {
+                    connection.complete();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        handle(key);
+                    }
+                }
+            } catch (IOException e) {
+                log.error("TCP selector failed", e);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        if (connections >= maxConnections) {
+            log.warn("Rejecting TCP connection from {}, {} connections are open", channel.getRemoteAddress(),
+                    connections);
+            channel.close();
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        Connection connection = new Connection(channel, key);
+        key.attach(connection);
+        unauthenticated.add(connection);
+        connections++;
+    }
+
+    /**
+     * Closes the connections that did not authenticate in time.
+     *
+     * @return the milliseconds until the next connection must have authenticated, 0 if none is waiting
+     */
+    private long closeUnauthenticated() {
+        long now = System.currentTimeMillis();
+        Connection connection;
+        while ((connection = unauthenticated.peek()) != null) {
+            if (connection.authenticated || !connection.key.isValid()) {
+                unauthenticated.poll();
+            } else if (connection.authDeadline <= now) {
+                unauthenticated.poll();
+                log.warn("Closing TCP connection that did not authenticate within {} ms", authTimeoutMillis);
+                connection.close();
+            } else {
+                return connection.authDeadline - now;
+            }
+        }
+        return 0;
+    }
+
+    private void handle(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isWritable()) {
+                connection.flush();
+            }
+            if (key.isValid() && key.isReadable()) {
+                connection.read();
+            }
+        } catch (IOException e) {
+            log.debug("Closing TCP connection after I/O error", e);
+            connection.close();
+        }
+    }
+
+    private void closeQuietly(SelectionKey key) {
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            log.debug("Failed to close TCP channel", e);
+        }
+    }
+
+    /**
+     * State of one connection; only touched by the selector thread, except for the status of the frame being written.
+     */
+    private final class Connection {
+
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final ByteBuffer out = ByteBuffer.allocateDirect(REPLY_BYTES);
+        private final long authDeadline = System.currentTimeMillis() + authTimeoutMillis;
+        private ByteBuffer in = ByteBuffer.allocate(HEADER_BYTES + authToken.length);
+        private byte[] keyBytes;
+        private boolean authenticated;
+        private boolean writing;
+        private boolean closing;
+        private volatile byte writtenStatus;
+        private volatile int writtenRecords;
+
+        private Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+
+        private void read() throws IOException {
+            if (channel.read(in) < 0) {
+                close();
+                return;
+            }
+            processFrames();
+        }
+
+        /**
+         * Handles the complete frames in the input buffer until one is handed to a writer or a reply cannot be written.
+         */
+        private void processFrames() throws IOException {
+            while (key.isValid() && !writing && !closing && out.position() == 0 && in.position() >= HEADER_BYTES) {
+                int length = in.getInt(0);
+                if (!authenticated && length > authToken.length) {
+                    unauthorized();
+                    return;
+                }
+                if (length < 0 || length > maxFrameBytes) {
+                    log.warn("Closing TCP connection sending a frame of {} bytes", length);
+                    close();
+                    return;
+                }
+                if (in.position() < HEADER_BYTES + length) {
+                    return;
+                }
+                if (!authenticated) {
+                    authenticate(length);
+                } else {
+                    processRecords(length);
+                }
+            }
+        }
+
+        private void authenticate(int length) throws IOException {
+            byte[] token = new byte[length];
+            in.get(HEADER_BYTES, token);
+            consume(HEADER_BYTES + length);
+            if (!MessageDigest.isEqual(token, authToken)) {
+                unauthorized();
+                return;
+            }
+            authenticated = true;
+            ByteBuffer frames = ByteBuffer.allocateDirect(HEADER_BYTES + maxFrameBytes);
+            in.flip();
+            in = frames.put(in);
+            keyBytes = new byte[maxKeyBytes];
+            reply(STATUS_OK, 0);
+        }
+
+        private void unauthorized() throws IOException {
+            log.warn("Rejecting TCP connection from {} with an invalid token", channel.getRemoteAddress());
+            closing = true;
+            reply(STATUS_UNAUTHORIZED, 0);
+        }
+
+        private void processRecords(int length) throws IOException {
+            Map<String, Long> deltas = new LinkedHashMap<>();
+            int records = 0;
+            boolean invalid = false;
+            int position = HEADER_BYTES;
+            int end = HEADER_BYTES + length;
+            while (position < end) {
+                if (end - position < Short.BYTES) {
+                    malformed();
+                    return;
+                }
+                int keyLength = Short.toUnsignedInt(in.getShort(position));
+                position += Short.BYTES;
+                if (keyLength == 0 || keyLength > maxKeyBytes || end - position < keyLength + Long.BYTES) {
+                    malformed();
+                    return;
+                }
+                in.get(position, keyBytes, 0, keyLength);
+                position += keyLength;
+                long delta = in.getLong(position);
+                position += Long.BYTES;
+                String key = new String(keyBytes, 0, keyLength, StandardCharsets.UTF_8);
+                invalid |= key.isBlank();
+                try {
+                    deltas.merge(key, delta, Math::addExact);
+                } catch (ArithmeticException e) {
+                    invalid = true;
+                }
+                records++;
+            }
+            consume(end);
+            if (invalid) {
+                reply(STATUS_INVALID, records);
+            } else if (deltas.isEmpty()) {
+                reply(STATUS_OK, 0);
+            } else if (!inFlight.tryAcquire()) {
+                reply(STATUS_BUSY, records);
+            } else {
+                submit(deltas, records);
+            }
+        }
+
+        private void submit(Map<String, Long> deltas, int records) {
+            writing = true;
+            key.interestOps(0);
+            writers.execute(() -> {
+                byte status = STATUS_OK;
+                try {
+                    Map<String, Long> failed = incrementService.saveOrUpdateBatchInRedis(deltas);
+                    if (!failed.isEmpty()) {
+                        status = STATUS_FAILED;
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Failed to write TCP frame: keys = {}", deltas.size(), e);
+                    status = STATUS_FAILED;
+                } finally {
+                    inFlight.release();
+                }
+                writtenStatus = status;
+                writtenRecords = records;
+                completed.add(this);
+                selector.wakeup();
+            });
+        }
+
+        /**
+         * Replies to the written frame and resumes reading. Called on the selector thread.
+         */
+        private void complete() {
+            writing = false;
+            try {
+                reply(writtenStatus, writtenRecords);
+                if (key.isValid() && out.position() == 0) {
+                    resume();
+                }
+            } catch (IOException e) {
+                log.debug("Closing TCP connection after I/O error", e);
+                close();
+            }
+        }
+
+        private void malformed() throws IOException {
+            log.warn("Closing TCP connection from {} sending a malformed frame", channel.getRemoteAddress());
+            closing = true;
+            reply(STATUS_INVALID, 0);
+        }
+
+        /**
+         * Writes a reply; if the socket cannot take it, reading is paused until it is flushed, so replies never pile
+         * up.
+         */
+        private void reply(byte status, int records) throws IOException {
+            out.put(status).putInt(records);
+            write();
+            if (out.position() > 0) {
+                key.interestOps(SelectionKey.OP_WRITE);
+            } else if (closing) {
+                close();
+            }
+        }
+
+        private void flush() throws IOException {
+            write();
+            if (out.position() > 0) {
+                return;
+            }
+            if (closing) {
+                close();
+            } else if (!writing) {
+                resume();
+            }
+        }
+
+        private void write() throws IOException {
+            out.flip();
+            channel.write(out);
+            out.compact();
+        }
+
+        private void resume() throws IOException {
+            key.interestOps(SelectionKey.OP_READ);
+            processFrames();
+        }
+
+        private void consume(int bytes) {
+            in.flip();
+            in.position(bytes);
+            in.compact();
+        }
+
+        private void close() {
+            if (key.isValid()) {
+                connections--;
+                key.cancel();
+            }
+            closeQuietly(key);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.incrementservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes rows of the {@code counter_history} table and manages its daily partitions.
+ * Rows are streamed to PostgreSQL with the COPY protocol in CSV format, so a batch costs one statement and no
+ * per-row parsing or planning. Partitions are named {@code counter_history_yyyyMMdd} and cover one UTC day.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CounterHistoryRepository {
+
+    static final String TABLE = "counter_history";
+
+    static final String COPY_SQL = "COPY " + TABLE + " (key, bucket_start, delta) FROM STDIN WITH (FORMAT csv)";
+
+    static final String PARTITIONS_SQL = "SELECT c.relname FROM pg_inherits i "
+            + "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = ?";
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final int COPY_BUFFER_BYTES = 65536;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * A delta of a key in a time bucket.
+     *
+     * @param key         the key
+     * @param bucketStart the start of the bucket
+     * @param delta       the sum of the increments of the key flushed in the bucket
+     */
+    public record Row(String key, Instant bucketStart, long delta) {
+    }
+
+    /**
+     * Appends rows with a single COPY. The partitions of their buckets must exist.
+     *
+     * @param rows the rows to append
+     * @return the number of rows written
+     */
+    public long copyAll(Collection<Row> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            PGCopyOutputStream copy = new PGCopyOutputStream(connection.unwrap(PGConnection.class), COPY_SQL,
+                    COPY_BUFFER_BYTES);
+            // Not closed on failure, since closing the stream would commit the rows written so far
+            Writer writer = new BufferedWriter(new OutputStreamWriter(copy, StandardCharsets.UTF_8));
+            try {
+                for (Row row : rows) {
+                    writeCsv(writer, row);
+                }
+                writer.flush();
+            } catch (IOException | RuntimeException e) {
+                if (copy.isActive()) {
+                    copy.cancelCopy();
+                }
+                throw e instanceof IOException ioException ? new UncheckedIOException(ioException)
+                        : (RuntimeException) e;
+            }
+            return copy.endCopy();
+        });
+    }
+
+    /**
+     * Creates the partition of a day if it does not exist.
+     *
+     * @param day the UTC day covered by the partition
+     */
+    public void createPartition(LocalDate day) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(day) + " PARTITION OF " + TABLE
+                + " FOR VALUES FROM ('" + day + " 00:00:00+00') TO ('" + day.plusDays(1) + " 00:00:00+00')");
+    }
+
+    /**
+     * Drops the partition of a day, with all its rows.
+     *
+     * @param day the UTC day covered by the partition
+     */
+    public void dropPartition(LocalDate day) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + partitionName(day));
+    }
+
+    /**
+     * Lists the days covered by existing partitions; partitions not named by this repository are ignored.
+     *
+     * @return the UTC days of the partitions
+     */
+    public List<LocalDate> findPartitionDays() {
+        List<LocalDate> days = new ArrayList<>();
+        for (String name : jdbcTemplate.queryForList(PARTITIONS_SQL, String.class, TABLE)) {
+            try {
+                days.add(LocalDate.parse(name.substring(TABLE.length() + 1), PARTITION_SUFFIX));
+            } catch (DateTimeParseException | IndexOutOfBoundsException e) {
+                // Not a daily partition
+            }
+        }
+        return days;
+    }
+
+    static String partitionName(LocalDate day) {
+        return TABLE + "_" + PARTITION_SUFFIX.format(day);
+    }
+
+    static void writeCsv(Writer writer, Row row) throws IOException {
+        writer.write('"');
+        writer.write(row.key().replace("\"", "\"\""));
+        writer.write("\",");
+        writer.write(row.bucketStart().toString());
+        writer.write(',');
+        writer.write(Long.toString(row.delta()));
+        writer.write('\n');
+    }
+}
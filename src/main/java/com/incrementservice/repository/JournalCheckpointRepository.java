@@ -0,0 +1,45 @@
+package com.incrementservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Stores the journal position up to which increments are persisted in {@code sum_table}.
+ * The checkpoint is written in the transaction of the flushed sums, so it is exact even if the segment files cannot be
+ * deleted before a crash.
+ */
+@Repository
+@RequiredArgsConstructor
+public class JournalCheckpointRepository {
+
+    static final String SELECT_SQL = "SELECT position FROM journal_checkpoint WHERE journal = ?";
+
+    static final String UPSERT_SQL = "INSERT INTO journal_checkpoint (journal, position) VALUES (?, ?) "
+            + "ON CONFLICT (journal) DO UPDATE SET position = EXCLUDED.position";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Reads the checkpoint of a journal.
+     *
+     * @param journal the name of the journal
+     * @return the position up to which increments are persisted, -1 if none
+     */
+    public long findPosition(String journal) {
+        List<Long> positions = jdbcTemplate.queryForList(SELECT_SQL, Long.class, journal);
+        return positions.isEmpty() ? -1 : positions.get(0);
+    }
+
+    /**
+     * Writes the checkpoint of a journal.
+     *
+     * @param journal the name of the journal
+     * @param position the position up to which increments are persisted
+     */
+    public void save(String journal, long position) {
+        jdbcTemplate.update(UPSERT_SQL, journal, position);
+    }
+}
@@ -10,7 +10,7 @@ import java.util.Optional;
  * Repository for accessing SumEntity data.
  */
 @Repository
-public interface SumRepository extends JpaRepository<SumEntity, String> {
+public interface SumRepository extends JpaRepository<SumEntity, String>, SumRepositoryCustom {
 
     /**
      * Finds a SumEntity by its key.
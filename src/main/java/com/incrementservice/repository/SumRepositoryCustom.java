@@ -0,0 +1,17 @@
+package com.incrementservice.repository;
+
+import java.util.Map;
+
+/**
+ * Custom bulk operations on the sum table that bypass the JPA entity lifecycle.
+ */
+public interface SumRepositoryCustom {
+
+    /**
+     * Adds deltas to the sums of their keys, inserting the keys that do not exist yet.
+     * All deltas are sent as a single JDBC batch of {@code INSERT ... ON CONFLICT DO UPDATE} statements.
+     *
+     * @param deltas the values to add, keyed by sum key
+     */
+    void upsertAll(Map<String, Long> deltas);
+}
@@ -0,0 +1,62 @@
+package com.incrementservice.repository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC implementation of {@link SumRepositoryCustom}.
+ * With {@code reWriteBatchedInserts} enabled on the PostgreSQL driver, a batch is sent as multi-row inserts.
+ * The size and duration of every batch are recorded as histograms.
+ */
+@Slf4j
+public class SumRepositoryCustomImpl implements SumRepositoryCustom {
+
+    static final String UPSERT_SQL = "INSERT INTO sum_table (key, sum) VALUES (?, ?) "
+            + "ON CONFLICT (key) DO UPDATE SET sum = COALESCE(sum_table.sum, 0) + EXCLUDED.sum";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DistributionSummary batchSize;
+    private final Timer batchTimer;
+
+    /**
+     * Creates the repository fragment and registers its metrics.
+     *
+     * @param jdbcTemplate  the template used to run the upserts
+     * @param meterRegistry the registry used to publish batch metrics
+     */
+    public SumRepositoryCustomImpl(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = DistributionSummary.builder("increment.db.batch.size")
+                .description("Rows upserted per database batch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("increment.db.batch")
+                .description("Time to upsert a database batch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void upsertAll(Map<String, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        // Rows are locked in key order so that concurrent flushes of overlapping keys cannot deadlock
+        List<Map.Entry<String, Long>> rows = new ArrayList<>(deltas.entrySet());
+        rows.sort(Map.Entry.comparingByKey());
+
+        batchTimer.record(() -> jdbcTemplate.batchUpdate(UPSERT_SQL, rows, rows.size(), (statement, row) -> {
+            statement.setString(1, row.getKey());
+            statement.setLong(2, row.getValue());
+        }));
+        batchSize.record(rows.size());
+        log.debug("Upserted {} sums", rows.size());
+    }
+}
@@ -0,0 +1,218 @@
+package com.incrementservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds the number of increment requests handled concurrently by an instance, shedding the excess before Redis and
+ * the flush backlog are overloaded.
+ * <p>
+ * The limit is adjusted every {@code interval-ms} in AIMD fashion from two signals: the mean latency of the Redis
+ * writes recorded by the {@code increment.redis} timers during the interval, compared with its smoothed baseline, and
+ * the number of unflushed keys published by the {@code increment.unflushed.keys} gauge. The baseline only follows the
+ * latency of intervals in which Redis is not slow, so it does not drift up during a sustained slowdown. The limit is
+ * multiplied by {@code backoff-ratio} when the latency exceeds {@code latency-tolerance} times its baseline and
+ * {@code min-latency-ms}, or when more than {@code max-backlog} keys are unflushed; otherwise it grows by
+ * {@code increase} if requests reached it during the interval. It stays between {@code min-limit} and
+ * {@code max-limit}, so it recovers on its own once the signals are healthy again.
+ * </p>
+ * <p>
+ * The current limit, the requests in flight and the rejected requests are published as
+ * {@code increment.concurrency.limit}, {@code increment.concurrency.in.flight} and
+ * {@code increment.concurrency.rejected}.
+ * </p>
+ */
+@Service
+@ConditionalOnProperty(name = "increment-config.load-shedding.enabled", havingValue = "true")
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    static final String REDIS_LATENCY_METER = "increment.redis";
+    static final String BACKLOG_METER = "increment.unflushed.keys";
+
+    private static final Set<String> WRITE_OPERATIONS = Set.of("increment", "increment_all");
+    private static final double BASELINE_SMOOTHING = 0.1;
+
+    private final MeterRegistry meterRegistry;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int increase;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final long minLatencyNanos;
+    private final long maxBacklog;
+    private final long retryAfterSeconds;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejectedCounter;
+    private volatile int limit;
+    private volatile boolean saturated;
+
+    // Only accessed by adjust()
+    private double baselineLatencyNanos = Double.NaN;
+    private long lastWriteCount;
+    private double lastWriteNanos;
+
+    /**
+     * Creates the limiter and registers its metrics.
+     *
+     * @param initialLimit      the limit before the first adjustment
+     * @param minLimit          the lowest limit
+     * @param maxLimit          the highest limit
+     * @param increase          the number of requests the limit grows by per healthy interval it was reached in
+     * @param backoffRatio      the factor applied to the limit per congested interval
+     * @param latencyTolerance  the ratio of the Redis latency to its baseline above which Redis is congested
+     * @param minLatencyMillis  the Redis latency below which Redis is never considered congested, in milliseconds
+     * @param maxBacklog        the number of unflushed keys above which the flush is considered congested, 0 to ignore
+     *                          the backlog
+     * @param retryAfterSeconds the delay clients are asked to wait after a rejection, in seconds
+     * @param meterRegistry     the registry providing the signals and used to publish the limiter metrics
+     */
+    public AdaptiveConcurrencyLimiter(@Value("${increment-config.load-shedding.initial-limit:200}") int initialLimit,
+                                      @Value("${increment-config.load-shedding.min-limit:10}") int minLimit,
+                                      @Value("${increment-config.load-shedding.max-limit:1000}") int maxLimit,
+                                      @Value("${increment-config.load-shedding.increase:10}") int increase,
+                                      @Value("${increment-config.load-shedding.backoff-ratio:0.9}") double backoffRatio,
+                                      @Value("${increment-config.load-shedding.latency-tolerance:2.0}")
+                                      double latencyTolerance,
+                                      @Value("${increment-config.load-shedding.min-latency-ms:2}")
+                                      long minLatencyMillis,
+                                      @Value("${increment-config.load-shedding.max-backlog:100000}") long maxBacklog,
+                                      @Value("${increment-config.load-shedding.retry-after-seconds:1}")
+                                      long retryAfterSeconds,
+                                      MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.increase = increase;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.minLatencyNanos = TimeUnit.MILLISECONDS.toNanos(minLatencyMillis);
+        this.maxBacklog = maxBacklog;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        Gauge.builder("increment.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Increment requests an instance handles concurrently before shedding load")
+                .register(meterRegistry);
+        Gauge.builder("increment.concurrency.in.flight", inFlight, AtomicInteger::get)
+                .description("Increment requests being handled")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("increment.concurrency.rejected")
+                .description("Increment requests shed because the concurrency limit was reached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits a request if fewer than the current limit are in flight.
+     * Every admitted request must be followed by a call to {@link #release()}.
+     *
+     * @return {@code true} if the request is admitted, {@code false} if it should be shed
+     */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                saturated = true;
+                rejectedCounter.increment();
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        if (current + 1 >= limit && !saturated) {
+            saturated = true;
+        }
+        return true;
+    }
+
+    /**
+     * Releases the slot of a request admitted by {@link #tryAcquire()}.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Returns the current limit.
+     *
+     * @return the number of requests admitted concurrently
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns the delay clients are asked to wait after a rejection.
+     *
+     * @return the value of the {@code Retry-After} header, in seconds
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * Lowers the limit if Redis or the flush is congested, or raises it if it was reached while both are healthy.
+     */
+    @Scheduled(fixedDelayString = "${increment-config.load-shedding.interval-ms:1000}")
+    public void adjust() {
+        double latencyNanos = sampleWriteLatencyNanos();
+        Gauge backlogGauge = meterRegistry.find(BACKLOG_METER).gauge();
+        long backlog = backlogGauge == null ? 0 : (long) backlogGauge.value();
+
+        boolean congested = maxBacklog > 0 && backlog > maxBacklog;
+        if (!Double.isNaN(latencyNanos)) {
+            if (Double.isNaN(baselineLatencyNanos)) {
+                baselineLatencyNanos = latencyNanos;
+            }
+            boolean slow = latencyNanos > minLatencyNanos && latencyNanos > baselineLatencyNanos * latencyTolerance;
+            if (!slow) {
+                // Frozen while Redis is slow, so a sustained slowdown does not become the new baseline
+                baselineLatencyNanos += BASELINE_SMOOTHING * (latencyNanos - baselineLatencyNanos);
+            }
+            congested |= slow;
+        }
+
+        int previous = limit;
+        if (congested) {
+            limit = Math.max(minLimit, (int) (previous * backoffRatio));
+        } else if (saturated) {
+            limit = Math.min(maxLimit, previous + increase);
+        }
+        saturated = false;
+
+        if (limit != previous && log.isDebugEnabled()) {
+            log.debug("Adjusted concurrency limit: limit = {}, Redis latency = {} us, unflushed keys = {}", limit,
+                    Double.isNaN(latencyNanos) ? null : (long) (latencyNanos / 1000), backlog);
+        }
+    }
+
+    /**
+     * Returns the mean latency of the Redis writes recorded since the previous call.
+     *
+     * @return the mean latency in nanoseconds, or NaN if there was no write
+     */
+    private double sampleWriteLatencyNanos() {
+        long count = 0;
+        double totalNanos = 0;
+        for (Timer timer : meterRegistry.find(REDIS_LATENCY_METER).timers()) {
+            if (WRITE_OPERATIONS.contains(timer.getId().getTag("operation"))) {
+                count += timer.count();
+                totalNanos += timer.totalTime(TimeUnit.NANOSECONDS);
+            }
+        }
+        long writes = count - lastWriteCount;
+        double writeNanos = totalNanos - lastWriteNanos;
+        lastWriteCount = count;
+        lastWriteNanos = totalNanos;
+        return writes > 0 ? writeNanos / writes : Double.NaN;
+    }
+}
@@ -0,0 +1,184 @@
+package com.incrementservice.service;
+
+import com.incrementservice.config.NumericRedisSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Drains shadow counters without losing concurrent increments.
+ * A drain atomically moves the value of a shadow key into its pending key; writers keep incrementing the shadow key
+ * from zero meanwhile. Once the drained value is persisted, the pending key is acknowledged and deleted; if the
+ * database write fails, the pending value is restored into the shadow key instead. All keys passed to one call must
+ * belong to the same {@link CounterKeyspace} partition.
+ * <p>
+ * Every drain is identified by a random token and owns the counters it drains for {@code lease-ms}, or until it
+ * acknowledges or restores them. Counters owned by another drain, such as a concurrent drain of the same expired key by
+ * another instance, are left out of the drained values, so a pending value is never persisted twice as long as the
+ * database write of a drain completes within the lease. Once a lease expires, the next drain takes over the pending
+ * value; the late acknowledgement of the previous owner then leaves it alone and is logged.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "increment-config.store", havingValue = "redis", matchIfMissing = true)
+@Slf4j
+public class CounterDrainer {
+
+    /**
+     * Moves shadow values into pending keys owned by the drain and returns the pending values.
+     */
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> DRAIN_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/drain.lua"), List.class);
+
+    /**
+     * Deletes owned pending keys and reschedules counters incremented since the drain.
+     */
+    static final RedisScript<Long> ACKNOWLEDGE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/acknowledge.lua"), Long.class);
+
+    /**
+     * Adds owned pending values back to their shadow keys.
+     */
+    static final RedisScript<Long> RESTORE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/restore.lua"), Long.class);
+
+    private final RedisTemplate<String, Long> redisTemplate;
+    private final CounterKeyspace counterKeyspace;
+    private final long leaseMillis;
+    private final Timer drainTimer;
+    private final Timer acknowledgeTimer;
+    private final Timer restoreTimer;
+
+    /**
+     * The values taken by one drain.
+     *
+     * @param token  the token identifying the drain as the owner of its counters
+     * @param values the drained value of every key owned by the drain, including values of earlier drains whose lease
+     *               expired; keys owned by another drain are left out
+     */
+    public record Drain(String token, Map<String, Long> values) {
+    }
+
+    /**
+     * Creates the drainer and registers the timers of its Redis calls.
+     *
+     * @param redisTemplate   the template used to run the scripts
+     * @param counterKeyspace the names of the Redis keys
+     * @param leaseMillis     the time a drain owns its counters if it neither acknowledges nor restores them
+     * @param meterRegistry   the registry used to publish Redis timers
+     */
+    public CounterDrainer(RedisTemplate<String, Long> redisTemplate, CounterKeyspace counterKeyspace,
+                          @Value("${increment-config.flush.lease-ms:30000}") long leaseMillis,
+                          MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.counterKeyspace = counterKeyspace;
+        this.leaseMillis = leaseMillis;
+        this.drainTimer = RedisCounterStore.redisTimer("drain", meterRegistry);
+        this.acknowledgeTimer = RedisCounterStore.redisTimer("acknowledge", meterRegistry);
+        this.restoreTimer = RedisCounterStore.redisTimer("restore", meterRegistry);
+    }
+
+    /**
+     * Takes the accumulated values of the given keys that are not owned by another drain.
+     *
+     * @param keys the keys to drain
+     * @return the drain, to be acknowledged or restored
+     */
+    @SuppressWarnings("unchecked")
+    public Drain drain(List<String> keys) {
+        String token = UUID.randomUUID().toString();
+        List<Long> values = drainTimer.record(() -> redisTemplate.execute(DRAIN_SCRIPT, RedisSerializer.string(), null,
+                drainKeys(keys), token, String.valueOf(leaseMillis)));
+        Map<String, Long> drained = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            Long value = values == null ? Long.valueOf(0) : values.get(i);
+            if (value != null) {
+                drained.put(keys.get(i), value);
+            }
+        }
+        return new Drain(token, drained);
+    }
+
+    /**
+     * Discards the drained values after they have been persisted and subtracts them from the unflushed delta of their
+     * partition.
+     *
+     * @param drain the drain
+     * @param dueAt the epoch millis at which keys that were incremented since the drain are due again, or 0 if dirty
+     *              keys are not tracked, in which case such keys get a live key again so that they expire
+     */
+    public void acknowledge(Drain drain, long dueAt) {
+        List<String> keys = new ArrayList<>(drain.values().keySet());
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<String> args = new ArrayList<>();
+        args.add(drain.token());
+        args.add(String.valueOf(dueAt));
+        args.add(String.valueOf(RedisCounterStore.KEY_TTL_SECONDS));
+        args.addAll(keys);
+        List<String> redisKeys = new ArrayList<>(keys.size() * 4 + 2);
+        redisKeys.add(counterKeyspace.dirtyKeysKeyOf(keys.get(0)));
+        redisKeys.add(counterKeyspace.unflushedDeltaKeyOf(keys.get(0)));
+        redisKeys.addAll(ownedKeys(keys));
+        Long acknowledged = acknowledgeTimer.record(() -> redisTemplate.execute(ACKNOWLEDGE_SCRIPT,
+                RedisSerializer.string(), NumericRedisSerializer.INSTANCE, redisKeys, args.toArray()));
+        if (acknowledged != null && acknowledged < keys.size()) {
+            log.warn("Lease of {} drained keys expired before they were acknowledged, their values may be persisted "
+                    + "twice; lease-ms should exceed the database write time", keys.size() - acknowledged);
+        }
+    }
+
+    /**
+     * Puts the drained values back into their shadow keys.
+     *
+     * @param drain the drain
+     * @param rearm whether the restored keys get a live key again so that they expire, for when dirty keys are not
+     *              tracked
+     */
+    public void restore(Drain drain, boolean rearm) {
+        List<String> keys = new ArrayList<>(drain.values().keySet());
+        if (keys.isEmpty()) {
+            return;
+        }
+        String ttl = String.valueOf(rearm ? RedisCounterStore.KEY_TTL_SECONDS : 0);
+        Long restored = restoreTimer.record(() -> redisTemplate.execute(RESTORE_SCRIPT, RedisSerializer.string(),
+                NumericRedisSerializer.INSTANCE, ownedKeys(keys), drain.token(), ttl));
+        log.warn("Restored drained values of {} keys", restored);
+    }
+
+    private static List<String> drainKeys(List<String> keys) {
+        List<String> redisKeys = new ArrayList<>(keys.size() * 3);
+        for (String key : keys) {
+            redisKeys.add(RedisCounterStore.createShadowKey(key));
+            redisKeys.add(RedisCounterStore.createPendingKey(key));
+            redisKeys.add(RedisCounterStore.createDrainOwnerKey(key));
+        }
+        return redisKeys;
+    }
+
+    private static List<String> ownedKeys(List<String> keys) {
+        List<String> redisKeys = new ArrayList<>(keys.size() * 4);
+        for (String key : keys) {
+            redisKeys.add(key);
+            redisKeys.add(RedisCounterStore.createShadowKey(key));
+            redisKeys.add(RedisCounterStore.createPendingKey(key));
+            redisKeys.add(RedisCounterStore.createDrainOwnerKey(key));
+        }
+        return redisKeys;
+    }
+}
@@ -0,0 +1,228 @@
+package com.incrementservice.service;
+
+import com.incrementservice.repository.CounterHistoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Records the flushed deltas of every key per time bucket in the {@code counter_history} table, when enabled.
+ * <p>
+ * The flush services hand their persisted deltas to {@link #record(Map, long)}, which only sums them in memory per key
+ * and bucket of {@code bucket-seconds}, by the time of the flush; the rows are appended with a single COPY every
+ * {@code write-interval-ms} on the scheduler, so the history never delays the flush of the sums. At most
+ * {@code max-rows} rows are held; deltas of further rows, or of rows whose write fails while the buffer is full, are
+ * dropped and counted by {@code increment.history.dropped}, since the history is not needed for the sums to be exact.
+ * </p>
+ * <p>
+ * The table is partitioned by UTC day. The partitions of the next {@code premake-days} days are created ahead of time,
+ * any missing partition of a written bucket just before its rows are copied, and partitions older than
+ * {@code retention-days} are dropped.
+ * </p>
+ */
+@Service
+@Slf4j
+public class CounterHistoryService {
+
+    private final CounterHistoryRepository historyRepository;
+    private final boolean enabled;
+    private final long bucketMillis;
+    private final int maxRows;
+    private final int retentionDays;
+    private final int premakeDays;
+    private final ReentrantLock pendingLock = new ReentrantLock();
+    private final Set<LocalDate> partitions = ConcurrentHashMap.newKeySet();
+    private final Counter writtenCounter;
+    private final Counter droppedCounter;
+    private final Timer copyTimer;
+    private Map<Long, Map<String, Long>> pending = new HashMap<>();
+    private int pendingRows;
+
+    /**
+     * Creates the service and registers its metrics.
+     *
+     * @param historyRepository the repository of the history table
+     * @param enabled           whether the history is recorded
+     * @param bucketSeconds     the length of a time bucket, in seconds
+     * @param maxRows           the maximum number of rows held before they are written
+     * @param retentionDays     the number of days after which partitions are dropped
+     * @param premakeDays       the number of days whose partitions are created ahead of time
+     * @param meterRegistry     the registry used to publish history metrics
+     */
+    public CounterHistoryService(CounterHistoryRepository historyRepository,
+                                 @Value("${increment-config.history.enabled:false}") boolean enabled,
+                                 @Value("${increment-config.history.bucket-seconds:60}") long bucketSeconds,
+                                 @Value("${increment-config.history.max-rows:200000}") int maxRows,
+                                 @Value("${increment-config.history.retention-days:30}") int retentionDays,
+                                 @Value("${increment-config.history.premake-days:2}") int premakeDays,
+                                 MeterRegistry meterRegistry) {
+        this.historyRepository = historyRepository;
+        this.enabled = enabled;
+        this.bucketMillis = TimeUnit.SECONDS.toMillis(bucketSeconds);
+        this.maxRows = maxRows;
+        this.retentionDays = retentionDays;
+        this.premakeDays = premakeDays;
+        this.writtenCounter = Counter.builder("increment.history.written")
+                .description("History rows appended to the database")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("increment.history.dropped")
+                .description("History rows dropped because the buffer was full")
+                .register(meterRegistry);
+        this.copyTimer = Timer.builder("increment.history.copy")
+                .description("Time to append a batch of history rows with COPY")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("increment.history.pending", this, CounterHistoryService::getPendingRows)
+                .description("History rows waiting to be written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns whether the history is recorded.
+     *
+     * @return {@code true} if flushed deltas are recorded
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Adds persisted deltas to the bucket of their flush.
+     *
+     * @param deltas    the persisted values, keyed by key
+     * @param flushedAt the time of the flush, in epoch millis
+     */
+    public void record(Map<String, Long> deltas, long flushedAt) {
+        if (!enabled || deltas.isEmpty()) {
+            return;
+        }
+        long bucketStart = flushedAt - Math.floorMod(flushedAt, bucketMillis);
+        pendingLock.lock();
+        try {
+            merge(bucketStart, deltas);
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    /**
+     * Appends the pending rows to the history table, creating the partitions of their days if needed.
+     * Rows whose write fails are kept for the next write as long as the buffer has room for them.
+     */
+    @Scheduled(fixedDelayString = "${increment-config.history.write-interval-ms:5000}")
+    @PreDestroy
+    public void write() {
+        if (!enabled) {
+            return;
+        }
+        Map<Long, Map<String, Long>> written;
+        pendingLock.lock();
+        try {
+            if (pendingRows == 0) {
+                return;
+            }
+            written = pending;
+            pending = new HashMap<>();
+            pendingRows = 0;
+        } finally {
+            pendingLock.unlock();
+        }
+
+        List<CounterHistoryRepository.Row> rows = new ArrayList<>();
+        written.forEach((bucketStart, deltas) -> deltas.forEach((key, delta) ->
+                rows.add(new CounterHistoryRepository.Row(key, Instant.ofEpochMilli(bucketStart), delta))));
+        try {
+            for (long bucketStart : written.keySet()) {
+                ensurePartition(dayOf(bucketStart));
+            }
+            long count = copyTimer.record(() -> historyRepository.copyAll(rows));
+            writtenCounter.increment(count);
+            log.debug("Appended history rows: rows = {}", count);
+        } catch (RuntimeException e) {
+            log.warn("Failed to append {} history rows, they will be retried with the next write", rows.size(), e);
+            pendingLock.lock();
+            try {
+                written.forEach(this::merge);
+            } finally {
+                pendingLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Creates the partitions of today and the next {@code premake-days} days, and drops the partitions older than
+     * {@code retention-days}.
+     */
+    @Scheduled(fixedDelayString = "${increment-config.history.maintenance-interval-ms:3600000}")
+    public void maintainPartitions() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            LocalDate today = LocalDate.now(ZoneOffset.UTC);
+            for (int day = 0; day <= premakeDays; day++) {
+                ensurePartition(today.plusDays(day));
+            }
+            LocalDate oldestKept = today.minusDays(retentionDays);
+            for (LocalDate day : historyRepository.findPartitionDays()) {
+                if (day.isBefore(oldestKept)) {
+                    historyRepository.dropPartition(day);
+                    partitions.remove(day);
+                    log.info("Dropped history partition: day = {}", day);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to maintain history partitions, they will be maintained with the next run", e);
+        }
+    }
+
+    private void ensurePartition(LocalDate day) {
+        if (!partitions.contains(day)) {
+            historyRepository.createPartition(day);
+            partitions.add(day);
+        }
+    }
+
+    /**
+     * Sums deltas into the pending rows of a bucket. Must be called with the pending lock held.
+     */
+    private void merge(long bucketStart, Map<String, Long> deltas) {
+        Map<String, Long> bucket = pending.computeIfAbsent(bucketStart, b -> new HashMap<>());
+        deltas.forEach((key, delta) -> {
+            if (bucket.containsKey(key)) {
+                bucket.merge(key, delta, Long::sum);
+            } else if (pendingRows < maxRows) {
+                bucket.put(key, delta);
+                pendingRows++;
+            } else {
+                droppedCounter.increment();
+            }
+        });
+    }
+
+    private int getPendingRows() {
+        return pendingRows;
+    }
+
+    private static LocalDate dayOf(long epochMillis) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,134 @@
+package com.incrementservice.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Names the Redis keys of counters.
+ * On a standalone Redis, a counter is stored under its name and all counters share one dirty key set. On a Redis
+ * Cluster, counters are spread over {@code partitions} partitions: every counter name is prefixed with the hash tag
+ * {@code {p}} of its partition and every partition has its own dirty key set {@code increment:dirty:{p}} and unflushed
+ * delta {@code increment:unflushed:{p}}, so the live, shadow and pending keys of a counter and the keys tracking it
+ * share a hash slot and can be updated by one script. The number of partitions must not be changed while unflushed
+ * values are held in Redis.
+ */
+@Component
+public class CounterKeyspace {
+
+    public static final String MODE_CLUSTER = "cluster";
+
+    /**
+     * Sorted set of the keys holding unflushed shadow values, scored by the epoch millis at which they are due.
+     */
+    static final String DIRTY_KEYS_KEY = "increment:dirty";
+
+    /**
+     * Sum of the values incremented but not yet acknowledged as persisted.
+     */
+    static final String UNFLUSHED_DELTA_KEY = "increment:unflushed";
+
+    private final boolean cluster;
+    private final int partitions;
+    private final HotKeyDetector hotKeyDetector;
+
+    /**
+     * Creates the keyspace.
+     *
+     * @param mode           {@code standalone} or {@code cluster}
+     * @param partitions     the number of partitions counters are spread over in cluster mode
+     * @param hotKeyDetector the detector naming the counters and shards of keys
+     */
+    public CounterKeyspace(@Value("${increment-config.redis.mode:standalone}") String mode,
+                           @Value("${increment-config.redis.partitions:128}") int partitions,
+                           HotKeyDetector hotKeyDetector) {
+        this.cluster = MODE_CLUSTER.equals(mode);
+        this.partitions = cluster ? partitions : 1;
+        this.hotKeyDetector = hotKeyDetector;
+    }
+
+    /**
+     * Returns the number of dirty key sets.
+     *
+     * @return the number of partitions, 1 on a standalone Redis
+     */
+    public int partitions() {
+        return partitions;
+    }
+
+    /**
+     * Returns the Redis name of a counter.
+     *
+     * @param name the counter name of a key or one of its shards, as returned by
+     *             {@link HotKeyDetector#counterKey(String)}
+     * @return the name prefixed with the hash tag of its partition in cluster mode, otherwise the name itself
+     */
+    public String counterKey(String name) {
+        if (!cluster) {
+            return name;
+        }
+        return "{" + Math.floorMod(name.hashCode(), partitions) + "}" + name;
+    }
+
+    /**
+     * Returns the key whose value a Redis counter holds.
+     *
+     * @param counterKey the Redis name of the counter, as returned by {@link #counterKey(String)}
+     * @return the key
+     */
+    public String baseKey(String counterKey) {
+        return hotKeyDetector.baseKey(cluster ? counterKey.substring(counterKey.indexOf('}') + 1) : counterKey);
+    }
+
+    /**
+     * Returns the partition of a counter.
+     *
+     * @param counterKey the Redis name of the counter
+     * @return the partition, 0 on a standalone Redis
+     */
+    public int partitionOf(String counterKey) {
+        if (!cluster) {
+            return 0;
+        }
+        return Integer.parseInt(counterKey, 1, counterKey.indexOf('}'), 10);
+    }
+
+    /**
+     * Returns the dirty key set of a partition.
+     *
+     * @param partition the partition
+     * @return the name of its dirty key set
+     */
+    public String dirtyKeysKey(int partition) {
+        return cluster ? DIRTY_KEYS_KEY + ":{" + partition + "}" : DIRTY_KEYS_KEY;
+    }
+
+    /**
+     * Returns the dirty key set tracking a counter.
+     *
+     * @param counterKey the Redis name of the counter
+     * @return the name of the dirty key set of its partition
+     */
+    public String dirtyKeysKeyOf(String counterKey) {
+        return dirtyKeysKey(partitionOf(counterKey));
+    }
+
+    /**
+     * Returns the key holding the sum of the unflushed values of a partition.
+     *
+     * @param partition the partition
+     * @return the name of its unflushed delta key
+     */
+    public String unflushedDeltaKey(int partition) {
+        return cluster ? UNFLUSHED_DELTA_KEY + ":{" + partition + "}" : UNFLUSHED_DELTA_KEY;
+    }
+
+    /**
+     * Returns the key holding the sum of the unflushed values of the partition of a counter.
+     *
+     * @param counterKey the Redis name of the counter
+     * @return the name of the unflushed delta key of its partition
+     */
+    public String unflushedDeltaKeyOf(String counterKey) {
+        return unflushedDeltaKey(partitionOf(counterKey));
+    }
+}
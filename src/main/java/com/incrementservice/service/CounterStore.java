@@ -0,0 +1,36 @@
+package com.incrementservice.service;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Holds the increments of keys until they are persisted to the database.
+ * The backend is selected with {@code increment-config.store}: {@code redis} shares counters between instances through
+ * Redis, {@code memory} keeps them in the JVM of a single instance.
+ */
+public interface CounterStore {
+
+    /**
+     * Adds a value to the counter of a key.
+     *
+     * @param key   the key to increment
+     * @param delta the value to add
+     */
+    void increment(String key, long delta);
+
+    /**
+     * Adds values to the counters of several keys.
+     *
+     * @param deltas the values to add, keyed by key; duplicate keys must already be summed
+     * @return the entries that could not be written
+     */
+    Map<String, Long> incrementAll(Map<String, Long> deltas);
+
+    /**
+     * Returns the values of keys that are not persisted to the database yet.
+     *
+     * @param keys the keys to read
+     * @return the unflushed value of every key, 0 for keys without counter
+     */
+    Map<String, Long> unflushedValues(Collection<String> keys);
+}
@@ -0,0 +1,81 @@
+package com.incrementservice.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the backlog of the {@link FlushService}: the number of dirty keys and the sum of the values that are
+ * incremented in Redis but not yet persisted.
+ * Both are read from the dirty key sets and unflushed delta keys of all {@link CounterKeyspace} partitions in one
+ * pipeline every {@code backlog-interval-ms}, so scraping the gauges does not query Redis. Dirty keys are only tracked
+ * by scheduled flushes.
+ */
+@Component
+@ConditionalOnProperty(name = "increment-config.store", havingValue = "redis", matchIfMissing = true)
+@Slf4j
+public class FlushBacklogMonitor {
+
+    private final RedisTemplate<String, Long> redisTemplate;
+    private final CounterKeyspace counterKeyspace;
+    private final AtomicLong dirtyKeys = new AtomicLong();
+    private final AtomicLong unflushedDelta = new AtomicLong();
+
+    /**
+     * Creates the monitor and registers its gauges.
+     *
+     * @param redisTemplate   the template used to read the backlog
+     * @param counterKeyspace the names of the Redis keys
+     * @param meterRegistry   the registry used to publish the gauges
+     */
+    public FlushBacklogMonitor(RedisTemplate<String, Long> redisTemplate, CounterKeyspace counterKeyspace,
+                               MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.counterKeyspace = counterKeyspace;
+        Gauge.builder("increment.unflushed.keys", dirtyKeys, AtomicLong::get)
+                .description("Counters with values that are not persisted yet")
+                .register(meterRegistry);
+        Gauge.builder("increment.unflushed.delta", unflushedDelta, AtomicLong::get)
+                .description("Sum of the values that are not persisted yet")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reads the backlog of all partitions.
+     */
+    @Scheduled(fixedDelayString = "${increment-config.metrics.backlog-interval-ms:10000}")
+    public void sample() {
+        try {
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (int partition = 0; partition < counterKeyspace.partitions(); partition++) {
+                    connection.zSetCommands().zCard(raw(counterKeyspace.dirtyKeysKey(partition)));
+                    connection.stringCommands().get(raw(counterKeyspace.unflushedDeltaKey(partition)));
+                }
+                return null;
+            });
+            long keys = 0;
+            long delta = 0;
+            for (int i = 0; i < results.size(); i += 2) {
+                keys += results.get(i) == null ? 0 : (Long) results.get(i);
+                delta += results.get(i + 1) == null ? 0 : (Long) results.get(i + 1);
+            }
+            dirtyKeys.set(keys);
+            unflushedDelta.set(delta);
+        } catch (RuntimeException e) {
+            log.warn("Failed to read the flush backlog", e);
+        }
+    }
+
+    private static byte[] raw(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+}
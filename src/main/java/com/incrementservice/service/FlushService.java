@@ -0,0 +1,244 @@
+package com.incrementservice.service;
+
+import com.incrementservice.repository.SumRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists the shadow values of the {@link RedisCounterStore} to the database, either of dirty keys on a fixed schedule
+ * or of single keys on their expiration events.
+ * Every increment records its key in the dirty key set with the time at which it is due; this service claims due keys
+ * in pages, drains them with the {@link CounterDrainer}, writes each page to the database as a single batch of upserts
+ * and then acknowledges the drained values in Redis. Shards of a hot key are summed into one upsert of the key.
+ * Claimed keys are leased rather than removed, so a page whose flush fails, or whose instance dies, is claimed again
+ * once the lease expires. Drained values are owned by their drain for the same lease, so keys claimed again while an
+ * earlier flush of them is still being written are left to that flush.
+ * For scheduled flushes, the time from the first increment of a counter to the write of its value is recorded by the
+ * {@code increment.flush.lag} timer, derived from the time at which the counter was due; a counter claimed again after
+ * its lease expired is measured from the lease instead.
+ * Persisted values are also handed to the {@link CounterHistoryService}, which writes them in the background.
+ */
+@Service
+@ConditionalOnProperty(name = "increment-config.store", havingValue = "redis", matchIfMissing = true)
+@Slf4j
+public class FlushService {
+
+    /**
+     * Leases a page of due keys to the caller.
+     */
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> CLAIM_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/claim.lua"), List.class);
+
+    private final RedisTemplate<String, Long> redisTemplate;
+    private final CounterDrainer counterDrainer;
+    private final SumRepository sumRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final SumQueryService sumQueryService;
+    private final CounterKeyspace counterKeyspace;
+    private final CounterHistoryService counterHistoryService;
+    private final Timer claimTimer;
+    private final Timer flushLagTimer;
+
+    @Value("${increment-config.flush.trigger:" + RedisCounterStore.FLUSH_TRIGGER_SCHEDULED + "}")
+    private String flushTrigger = RedisCounterStore.FLUSH_TRIGGER_SCHEDULED;
+
+    @Value("${increment-config.flush.page-size:500}")
+    private int pageSize = 500;
+
+    @Value("${increment-config.flush.max-pages:20}")
+    private int maxPages = 20;
+
+    @Value("${increment-config.flush.lease-ms:30000}")
+    private long leaseMillis = 30000;
+
+    /**
+     * Creates the service and registers its metrics.
+     *
+     * @param redisTemplate         the template used to claim due keys
+     * @param counterDrainer        the drainer of shadow counters
+     * @param sumRepository         the repository of persisted sums
+     * @param transactionTemplate   the template of the database transactions
+     * @param sumQueryService       the service whose near-cache is invalidated after a flush
+     * @param counterKeyspace       the names of the Redis keys
+     * @param counterHistoryService the service recording the history of persisted values
+     * @param meterRegistry         the registry used to publish flush metrics
+     */
+    public FlushService(RedisTemplate<String, Long> redisTemplate, CounterDrainer counterDrainer,
+                        SumRepository sumRepository, TransactionTemplate transactionTemplate,
+                        SumQueryService sumQueryService, CounterKeyspace counterKeyspace,
+                        CounterHistoryService counterHistoryService, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.counterDrainer = counterDrainer;
+        this.sumRepository = sumRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.sumQueryService = sumQueryService;
+        this.counterKeyspace = counterKeyspace;
+        this.counterHistoryService = counterHistoryService;
+        this.claimTimer = RedisCounterStore.redisTimer("claim", meterRegistry);
+        this.flushLagTimer = Timer.builder("increment.flush.lag")
+                .description("Time from the first unflushed increment of a counter to the write of its value")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(100))
+                .maximumExpectedValue(Duration.ofMinutes(10))
+                .register(meterRegistry);
+    }
+
+    /**
+     * Flushes the keys that are due in every {@link CounterKeyspace} partition, page by page, until no due key is left
+     * or the page limit of the partition is reached. A partition that fails does not hold up the others.
+     */
+    @Scheduled(fixedDelayString = "${increment-config.flush.interval-ms:1000}")
+    public void flushDueKeys() {
+        if (!RedisCounterStore.FLUSH_TRIGGER_SCHEDULED.equals(flushTrigger)) {
+            return;
+        }
+        for (int partition = 0; partition < counterKeyspace.partitions(); partition++) {
+            flushPartition(partition);
+        }
+    }
+
+    private void flushPartition(int partition) {
+        for (int page = 0; page < maxPages; page++) {
+            try {
+                if (flushPage(partition) < pageSize) {
+                    return;
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed to flush dirty keys of partition {}, they will be retried once their lease expires",
+                        partition, e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Claims one page of due keys of a partition and persists their shadow values.
+     *
+     * @param partition the partition whose dirty key set is read
+     * @return the number of claimed keys
+     */
+    int flushPage(int partition) {
+        long now = System.currentTimeMillis();
+        Map<String, Long> dueAt = claimDueKeys(partition, now);
+        if (dueAt.isEmpty()) {
+            return 0;
+        }
+        List<String> claimed = new ArrayList<>(dueAt.keySet());
+
+        // Keys still owned by the drain of an instance whose lease expired are left to it
+        CounterDrainer.Drain drain = counterDrainer.drain(claimed);
+        Map<String, Long> flushed = new LinkedHashMap<>();
+        drain.values().forEach((counterKey, value) -> {
+            if (value != 0) {
+                flushed.merge(counterKeyspace.baseKey(counterKey), value, Long::sum);
+            }
+        });
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> sumRepository.upsertAll(flushed));
+        } catch (RuntimeException e) {
+            counterDrainer.restore(drain, false);
+            throw e;
+        }
+        long flushedAt = System.currentTimeMillis();
+        drain.values().forEach((counterKey, value) -> {
+            if (value != 0) {
+                long firstIncrementAt = dueAt.get(counterKey) - RedisCounterStore.KEY_TTL_SECONDS * 1000;
+                flushLagTimer.record(Math.max(0, flushedAt - firstIncrementAt), TimeUnit.MILLISECONDS);
+            }
+        });
+        counterDrainer.acknowledge(drain, now + RedisCounterStore.KEY_TTL_SECONDS * 1000);
+        sumQueryService.invalidate(claimed.stream()
+                .filter(drain.values()::containsKey)
+                .map(counterKeyspace::baseKey)
+                .distinct()
+                .toList());
+        counterHistoryService.record(flushed, flushedAt);
+
+        log.info("Flushed dirty keys: claimed = {}, persisted = {}", claimed.size(), flushed.size());
+        return claimed.size();
+    }
+
+    /**
+     * Leases a page of due keys of a partition.
+     *
+     * @return the time in epoch millis at which every claimed key was due, keyed by key
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private Map<String, Long> claimDueKeys(int partition, long now) {
+        // Deserializes every member and score of the returned list as a string
+        RedisSerializer memberSerializer = RedisSerializer.string();
+        List<String> claimed = claimTimer.record(() -> redisTemplate.execute(CLAIM_SCRIPT, RedisSerializer.string(),
+                memberSerializer, List.of(counterKeyspace.dirtyKeysKey(partition)), String.valueOf(now),
+                String.valueOf(pageSize), String.valueOf(now + leaseMillis)));
+        Map<String, Long> dueAt = new LinkedHashMap<>();
+        if (claimed != null) {
+            for (int i = 0; i < claimed.size(); i += 2) {
+                dueAt.put(claimed.get(i), (long) Double.parseDouble(claimed.get(i + 1)));
+            }
+        }
+        return dueAt;
+    }
+
+    /**
+     * Processes an expired Redis key, which may be a shard of a hot key.
+     * The shadow value is drained atomically, so increments arriving during the database write are kept for the next
+     * flush; if the write fails, the drained value is put back and the key is made to expire again. Every instance
+     * receives the expiration event, but only the first drain owns the value, so the others return without writing.
+     *
+     * @param expiredKey the expired key
+     */
+    public void processExpiredKey(String expiredKey) {
+        CounterDrainer.Drain drain = counterDrainer.drain(List.of(expiredKey));
+        Long value = drain.values().get(expiredKey);
+        if (value == null) {
+            log.debug("Expired key is drained by another instance: key = {}", expiredKey);
+            return;
+        }
+        if (value == 0) {
+            counterDrainer.acknowledge(drain, 0);
+            return;
+        }
+        log.debug("Drained shadow value: key = {}, value = {}", expiredKey, value);
+        String key = counterKeyspace.baseKey(expiredKey);
+        try {
+            updateOrInsertRecord(key, value);
+        } catch (RuntimeException e) {
+            counterDrainer.restore(drain, true);
+            throw e;
+        }
+        counterDrainer.acknowledge(drain, 0);
+        sumQueryService.invalidate(List.of(key));
+        counterHistoryService.record(Map.of(key, value), System.currentTimeMillis());
+    }
+
+    /**
+     * Updates or inserts a record in the database with a single upsert statement.
+     *
+     * @param expiredKey the expired Redis key
+     * @param value      the value to add to the database
+     */
+    void updateOrInsertRecord(String expiredKey, long value) {
+        log.debug("Updating or inserting record for key: {}, value = {}", expiredKey, value);
+
+        sumRepository.upsertAll(Map.of(expiredKey, value));
+    }
+}
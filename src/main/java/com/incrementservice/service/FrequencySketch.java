@@ -0,0 +1,76 @@
+package com.incrementservice.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-min sketch estimating how often keys were seen, in constant memory.
+ * Every key is counted in one cell of each of {@value #DEPTH} rows; its estimate is the smallest of those cells, which
+ * never under-counts and over-counts only by collisions with other keys. Updates are lock-free.
+ */
+public class FrequencySketch {
+
+    private static final int DEPTH = 4;
+
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+    };
+
+    private final int width;
+    private final AtomicLongArray counters;
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param width the number of cells per row, rounded up to a power of two; wider sketches collide less
+     */
+    public FrequencySketch(int width) {
+        this.width = Integer.highestOneBit(Math.max(2, width) - 1) << 1;
+        this.counters = new AtomicLongArray(DEPTH * this.width);
+    }
+
+    /**
+     * Counts occurrences of a key.
+     *
+     * @param key   the key seen
+     * @param count the number of occurrences
+     * @return the estimated count of the key, including these occurrences
+     */
+    public long add(String key, long count) {
+        int hash = key.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.addAndGet(cell(hash, row), count));
+        }
+        return estimate;
+    }
+
+    /**
+     * Returns the estimated count of a key.
+     *
+     * @param key the key
+     * @return the estimated count, 0 if the key was never seen
+     */
+    public long estimate(String key) {
+        int hash = key.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.get(cell(hash, row)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Forgets all counts.
+     */
+    public void reset() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    private int cell(int hash, int row) {
+        long mixed = (hash + SEEDS[row]) * SEEDS[(row + 1) % DEPTH];
+        mixed ^= mixed >>> 32;
+        return row * width + ((int) mixed & (width - 1));
+    }
+}
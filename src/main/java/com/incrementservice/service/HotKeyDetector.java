@@ -0,0 +1,183 @@
+package com.incrementservice.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Detects hot keys and spreads their increments over several Redis counters.
+ * A sample of the written keys is counted in a {@link FrequencySketch} that is reset every {@code window-ms}; a key
+ * whose estimated increments in a window reach {@code threshold} is hot, and each of its increments goes to one of
+ * {@code shards} counters {@code key#0} to {@code key#N-1} picked at random. A key stops being sharded once it has not
+ * been hot for {@code cool-down-windows} windows; the values left in its shards are flushed and read like any other.
+ * <p>
+ * While sharding is enabled, keys ending in {@code #} or in {@code #} followed by digits get an extra {@code #}
+ * appended to their counter name, so that no counter of a key can be mistaken for a shard of another key. While it is
+ * disabled, every key is its own counter name. Sharding must therefore only be enabled or disabled while Redis holds
+ * no unflushed values, since counters written under the other naming would be flushed to the wrong key.
+ * </p>
+ */
+@Component
+@Slf4j
+public class HotKeyDetector {
+
+    private static final char SHARD_SEPARATOR = '#';
+
+    private final boolean enabled;
+    private final int shards;
+    private final int sampleRate;
+    private final long sampledThreshold;
+    private final int coolDownWindows;
+    private final int maxHotKeys;
+    private final FrequencySketch sketch;
+    private final Map<String, Long> hotKeys = new ConcurrentHashMap<>();
+
+    private volatile long window;
+
+    /**
+     * Creates the detector and registers its metrics.
+     *
+     * @param enabled         whether hot keys are sharded
+     * @param shards          the number of counters a hot key is spread over
+     * @param sampleRate      one in this many increments is counted
+     * @param threshold       the number of increments per window that makes a key hot
+     * @param coolDownWindows the number of windows without reaching the threshold after which a key is not hot anymore
+     * @param maxHotKeys      the maximum number of keys sharded at the same time
+     * @param sketchWidth     the width of the frequency sketch
+     * @param meterRegistry   the registry used to publish detector metrics
+     */
+    public HotKeyDetector(@Value("${increment-config.hot-keys.enabled:false}") boolean enabled,
+                          @Value("${increment-config.hot-keys.shards:8}") int shards,
+                          @Value("${increment-config.hot-keys.sample-rate:16}") int sampleRate,
+                          @Value("${increment-config.hot-keys.threshold:10000}") long threshold,
+                          @Value("${increment-config.hot-keys.cool-down-windows:10}") int coolDownWindows,
+                          @Value("${increment-config.hot-keys.max-keys:1000}") int maxHotKeys,
+                          @Value("${increment-config.hot-keys.sketch-width:4096}") int sketchWidth,
+                          MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.shards = shards;
+        this.sampleRate = sampleRate;
+        this.sampledThreshold = Math.max(1, threshold / sampleRate);
+        this.coolDownWindows = coolDownWindows;
+        this.maxHotKeys = maxHotKeys;
+        this.sketch = new FrequencySketch(sketchWidth);
+        Gauge.builder("increment.hot.keys", hotKeys, Map::size)
+                .description("Keys currently sharded over several Redis counters")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the Redis counter an increment of a key is written to, counting the increment if it is sampled.
+     *
+     * @param key the key to increment
+     * @return a random shard of the key if it is hot, otherwise the counter name of the key
+     */
+    public String counterKey(String key) {
+        if (!enabled) {
+            return key;
+        }
+        String counterKey = escape(key);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextInt(sampleRate) == 0) {
+            record(key);
+        }
+        if (!hotKeys.containsKey(key)) {
+            return counterKey;
+        }
+        return counterKey + SHARD_SEPARATOR + random.nextInt(shards);
+    }
+
+    /**
+     * Returns every Redis counter that may hold increments of a key.
+     *
+     * @param key the key
+     * @return the counter name of the key, followed by its shards if sharding is enabled
+     */
+    public List<String> counterKeys(String key) {
+        if (!enabled) {
+            return List.of(key);
+        }
+        String counterKey = escape(key);
+        List<String> counterKeys = new ArrayList<>(shards + 1);
+        counterKeys.add(counterKey);
+        for (int shard = 0; shard < shards; shard++) {
+            counterKeys.add(counterKey + SHARD_SEPARATOR + shard);
+        }
+        return counterKeys;
+    }
+
+    /**
+     * Returns the key a Redis counter or shard belongs to.
+     *
+     * @param counterKey the counter name, as returned by {@link #counterKey(String)}
+     * @return the key, the counter name itself if sharding is disabled
+     */
+    public String baseKey(String counterKey) {
+        return enabled ? unescape(counterKey) : counterKey;
+    }
+
+    /**
+     * Starts a new detection window and stops sharding keys that have cooled down.
+     */
+    @Scheduled(fixedDelayString = "${increment-config.hot-keys.window-ms:1000}")
+    public void rotateWindow() {
+        if (!enabled) {
+            return;
+        }
+        sketch.reset();
+        long current = ++window;
+        hotKeys.entrySet().removeIf(entry -> {
+            boolean cooledDown = current - entry.getValue() > coolDownWindows;
+            if (cooledDown) {
+                log.info("Key is not hot anymore, stopped sharding: key = {}", entry.getKey());
+            }
+            return cooledDown;
+        });
+    }
+
+    private void record(String key) {
+        if (sketch.add(key, 1) < sampledThreshold) {
+            return;
+        }
+        if (!hotKeys.containsKey(key) && hotKeys.size() >= maxHotKeys) {
+            return;
+        }
+        if (hotKeys.put(key, window) == null) {
+            log.info("Detected hot key, sharding it over {} counters: key = {}", shards, key);
+        }
+    }
+
+    static String unescape(String counterKey) {
+        int separator = shardSeparatorIndex(counterKey);
+        String unsharded = separator >= 0 ? counterKey.substring(0, separator) : counterKey;
+        return !unsharded.isEmpty() && unsharded.charAt(unsharded.length() - 1) == SHARD_SEPARATOR
+                ? unsharded.substring(0, unsharded.length() - 1)
+                : unsharded;
+    }
+
+    static String escape(String key) {
+        boolean ambiguous = shardSeparatorIndex(key) >= 0
+                || !key.isEmpty() && key.charAt(key.length() - 1) == SHARD_SEPARATOR;
+        return ambiguous ? key + SHARD_SEPARATOR : key;
+    }
+
+    /**
+     * Returns the index of the separator of a trailing {@code #digits} suffix, or -1 if there is none.
+     */
+    private static int shardSeparatorIndex(String key) {
+        int index = key.length() - 1;
+        while (index >= 0 && key.charAt(index) >= '0' && key.charAt(index) <= '9') {
+            index--;
+        }
+        return index >= 0 && index < key.length() - 1 && key.charAt(index) == SHARD_SEPARATOR ? index : -1;
+    }
+}
@@ -0,0 +1,206 @@
+package com.incrementservice.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Micro-batches increments from concurrent requests into shared Redis pipelines.
+ * Callers enqueue their increment and wait; a single worker collects queued increments for up to
+ * {@code max-delay-us} microseconds or {@code max-commands} increments, writes them as one pipeline and completes every
+ * caller. Unlike the {@link IncrementBuffer}, a caller only returns once its increment is stored in Redis.
+ */
+@Component
+@Slf4j
+public class IncrementBatcher {
+
+    private final boolean enabled;
+    private final long maxDelayNanos;
+    private final int maxCommands;
+    private final long timeoutMillis;
+    private final BlockingQueue<PendingIncrement> queue;
+    private final DistributionSummary batchSize;
+
+    private volatile boolean running;
+    private Thread worker;
+    private Function<Map<String, Long>, Map<String, Long>> writer;
+
+    /**
+     * Creates the batcher and registers its metrics.
+     *
+     * @param enabled        whether micro-batching is enabled
+     * @param maxDelayMicros the maximum time the first increment of a batch waits for others, in microseconds
+     * @param maxCommands    the maximum number of increments in a batch
+     * @param queueCapacity  the maximum number of queued increments
+     * @param timeoutMillis  the maximum time a caller waits for its batch to be written, in milliseconds
+     * @param meterRegistry  the registry used to publish batcher metrics
+     */
+    public IncrementBatcher(@Value("${increment-config.batcher.enabled:false}") boolean enabled,
+                            @Value("${increment-config.batcher.max-delay-us:200}") long maxDelayMicros,
+                            @Value("${increment-config.batcher.max-commands:256}") int maxCommands,
+                            @Value("${increment-config.batcher.queue-capacity:10000}") int queueCapacity,
+                            @Value("${increment-config.batcher.timeout-ms:1000}") long timeoutMillis,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxDelayNanos = TimeUnit.MICROSECONDS.toNanos(maxDelayMicros);
+        this.maxCommands = maxCommands;
+        this.timeoutMillis = timeoutMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = DistributionSummary.builder("increment.batcher.batch.size")
+                .description("Increments written per micro-batch")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns whether micro-batching is enabled.
+     *
+     * @return {@code true} if increments should go through the batcher
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts the worker that writes the batches.
+     *
+     * @param writer writes a batch of summed deltas keyed by Redis key and returns the entries that could not be written
+     */
+    public void start(Function<Map<String, Long>, Map<String, Long>> writer) {
+        this.writer = writer;
+        this.running = true;
+        this.worker = Thread.ofPlatform().name("increment-batcher").daemon().start(this::run);
+        log.info("Started increment batcher: max delay = {} ns, max commands = {}", maxDelayNanos, maxCommands);
+    }
+
+    /**
+     * Stops the worker and writes the increments that are still queued.
+     */
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<PendingIncrement> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            write(remaining);
+        }
+    }
+
+    /**
+     * Adds an increment to the next batch and waits until the batch is written.
+     *
+     * @param key   the key to increment
+     * @param delta the value to add
+     * @return {@code true} once the increment is written, {@code false} if the queue is full and the caller must write
+     * the increment itself
+     * @exception RuntimeException if the batch could not be written, or if the increment was still queued after
+     * {@code timeout-ms} and was withdrawn; once its batch is being written, the caller waits for its outcome
+     */
+    public boolean increment(String key, long delta) {
+        PendingIncrement increment = new PendingIncrement(key, delta, new CompletableFuture<>());
+        if (!running || !queue.offer(increment)) {
+            return false;
+        }
+        try {
+            try {
+                increment.result().get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (queue.remove(increment)) {
+                    throw new QueryTimeoutException("Timed out waiting for batched increment of key: " + key, e);
+                }
+                // Already taken into a batch, which may still apply it, so failing now could make the caller retry it
+                increment.result().get();
+            }
+            return true;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RedisSystemException("Failed to increment key in Redis: " + key, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisSystemException("Interrupted waiting for batched increment of key: " + key, e);
+        }
+    }
+
+    private void run() {
+        List<PendingIncrement> batch = new ArrayList<>(maxCommands);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxCommands) {
+                    if (queue.drainTo(batch, maxCommands - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    PendingIncrement next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                if (running) {
+                    continue;
+                }
+                Thread.currentThread().interrupt();
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingIncrement> batch) {
+        batchSize.record(batch.size());
+        Map<String, Long> deltas = new LinkedHashMap<>();
+        for (PendingIncrement increment : batch) {
+            deltas.merge(increment.key(), increment.delta(), Long::sum);
+        }
+        try {
+            Map<String, Long> failed = writer.apply(deltas);
+            for (PendingIncrement increment : batch) {
+                if (failed.containsKey(increment.key())) {
+                    increment.result().completeExceptionally(
+                            new RedisSystemException("Failed to increment key in Redis: " + increment.key(), null));
+                } else {
+                    increment.result().complete(null);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to write batch of {} increments", batch.size(), e);
+            batch.forEach(increment -> increment.result().completeExceptionally(e));
+        }
+    }
+
+    private record PendingIncrement(String key, long delta, CompletableFuture<Void> result) {
+    }
+}
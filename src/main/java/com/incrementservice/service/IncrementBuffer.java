@@ -0,0 +1,154 @@
+package com.incrementservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process write-coalescing buffer placed in front of Redis.
+ * Increments for the same key are absorbed by a striped {@link LongAdder}, so concurrent requests on a hot key do not
+ * contend on a single counter. The buffer is drained periodically and every drained key costs a single Redis write,
+ * no matter how many requests contributed to it.
+ * The number of buffered keys is bounded; once the bound is reached, increments for new keys are rejected and must be
+ * written through to Redis by the caller.
+ */
+@Component
+@Slf4j
+public class IncrementBuffer {
+
+    private final ConcurrentHashMap<String, LongAdder> pending = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final int maxKeys;
+    private final int flushKeys;
+    private final Counter bufferedCounter;
+    private final Counter drainedCounter;
+    private final Counter rejectedCounter;
+
+    /**
+     * Creates the buffer and registers its metrics.
+     *
+     * @param enabled       whether write coalescing is enabled
+     * @param maxKeys       the maximum number of distinct keys held in the buffer
+     * @param flushKeys     the number of distinct keys after which an early flush is requested
+     * @param meterRegistry the registry used to publish buffer metrics
+     */
+    public IncrementBuffer(@Value("${increment-config.buffer.enabled:false}") boolean enabled,
+                           @Value("${increment-config.buffer.max-keys:100000}") int maxKeys,
+                           @Value("${increment-config.buffer.flush-keys:10000}") int flushKeys,
+                           MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxKeys = maxKeys;
+        this.flushKeys = flushKeys;
+        this.bufferedCounter = Counter.builder("increment.buffer.buffered")
+                .description("Increments absorbed by the in-process buffer")
+                .register(meterRegistry);
+        this.drainedCounter = Counter.builder("increment.buffer.drained")
+                .description("Keys drained from the in-process buffer to Redis")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("increment.buffer.rejected")
+                .description("Increments written through because the buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("increment.buffer.keys", pending, Map::size)
+                .description("Distinct keys currently held in the in-process buffer")
+                .register(meterRegistry);
+        Gauge.builder("increment.buffer.pending.delta", this, IncrementBuffer::pendingDelta)
+                .description("Sum of the deltas currently held in the in-process buffer")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns whether write coalescing is enabled.
+     *
+     * @return {@code true} if increments should go through the buffer
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Adds a delta to the buffered value of a key.
+     *
+     * @param key   the key to increment
+     * @param delta the value to add
+     * @return {@code true} if the delta was buffered, {@code false} if the buffer is full and the caller must write the
+     * delta through
+     */
+    public boolean add(String key, long delta) {
+        if (!pending.containsKey(key) && pending.size() >= maxKeys) {
+            rejectedCounter.increment();
+            return false;
+        }
+        accumulate(key, delta);
+        bufferedCounter.increment();
+        return true;
+    }
+
+    /**
+     * Returns whether enough keys are buffered to flush before the next scheduled drain.
+     *
+     * @return {@code true} if an early flush should be triggered
+     */
+    public boolean isFlushDue() {
+        return pending.size() >= flushKeys;
+    }
+
+    /**
+     * Removes every buffered key and returns the summed delta per key.
+     * Increments racing with the drain are either part of the returned map or stay in the buffer for the next drain;
+     * none of them is lost or counted twice.
+     *
+     * @return the drained deltas keyed by Redis key
+     */
+    public Map<String, Long> drain() {
+        Map<String, Long> drained = new HashMap<>();
+        for (Map.Entry<String, LongAdder> entry : pending.entrySet()) {
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                long delta = entry.getValue().sumThenReset();
+                if (delta != 0) {
+                    drained.merge(entry.getKey(), delta, Long::sum);
+                }
+            }
+        }
+        drainedCounter.increment(drained.size());
+        log.debug("Drained {} keys from increment buffer", drained.size());
+        return drained;
+    }
+
+    /**
+     * Puts a drained delta back into the buffer, ignoring the key bound, so that it is retried on the next flush.
+     *
+     * @param key   the key whose delta could not be written
+     * @param delta the delta to restore
+     */
+    public void restore(String key, long delta) {
+        accumulate(key, delta);
+    }
+
+    private void accumulate(String key, long delta) {
+        LongAdder adder = pending.computeIfAbsent(key, k -> new LongAdder());
+        adder.add(delta);
+        if (pending.get(key) != adder) {
+            // A concurrent drain detached this accumulator; move whatever it did not collect into the live one.
+            long residue = adder.sumThenReset();
+            if (residue != 0) {
+                accumulate(key, residue);
+            }
+        }
+    }
+
+    private double pendingDelta() {
+        long sum = 0;
+        for (LongAdder adder : pending.values()) {
+            sum += adder.sum();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,574 @@
+package com.incrementservice.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiPredicate;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Write-ahead journal of the increments held in process, by the {@link IncrementBuffer} or the
+ * {@link MemoryCounterStore}, so that a crash does not lose the increments of a flush window.
+ * <p>
+ * Every accepted increment is appended to a memory-mapped segment file and applied to its holder under the same lock.
+ * With {@code fsync} enabled, the caller then waits until a single sync thread has forced the segment to disk; all
+ * increments appended while one force is running are made durable by the next one, so the cost of an fsync is shared
+ * by every concurrent request (group commit). Without {@code fsync}, the mapped pages still survive a crash of the
+ * process, but not of the host. If forcing fails, the sync thread retries with a growing delay, and callers give up
+ * after {@code sync-timeout-ms}.
+ * </p>
+ * <p>
+ * A flush drains its holder and takes the journal position in one step, so the records before that position hold
+ * exactly the increments of the flushed values; once they are persisted, the flush confirms the position. Confirmed
+ * positions are kept in a mapped checkpoint file, and segments wholly before one are deleted. A segment is only
+ * replaced when it is full, or when a flush finds it older than {@code segment-max-age-ms}, so that a slowly filling
+ * segment does not keep confirmed records on disk forever. On startup, the records after the confirmed position are
+ * replayed into their holder. A record is a key length, a delta, the key and a CRC32C checksum; replay stops at the
+ * first incomplete or corrupt record of a segment.
+ * </p>
+ * <p>
+ * A position holds the segment id in its high 32 bits and the byte offset within the segment in its low 32 bits, so
+ * positions order like the records they point at.
+ * </p>
+ */
+@Component
+@Slf4j
+public class IncrementJournal {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final long MIN_SYNC_RETRY_MILLIS = 10;
+    private static final long MAX_SYNC_RETRY_MILLIS = 1000;
+
+    /**
+     * Bytes of a record besides its key: the key length, the delta and the checksum.
+     */
+    private static final int RECORD_OVERHEAD = Integer.BYTES + Long.BYTES + Integer.BYTES;
+
+    private final boolean enabled;
+    private final String name;
+    private final Path directory;
+    private final int segmentBytes;
+    private final long segmentMaxAgeMillis;
+    private final boolean fsync;
+    private final long syncTimeoutNanos;
+    private final Timer fsyncTimer;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition syncRequested = syncLock.newCondition();
+    private final Condition syncCompleted = syncLock.newCondition();
+
+    private volatile Segment current;
+    private MappedByteBuffer checkpoint;
+    private FileChannel checkpointChannel;
+    private long confirmed = -1;
+    private volatile long appendedBytes;
+    private volatile long syncedBytes;
+    private volatile boolean running;
+    private Thread syncer;
+
+    /**
+     * Creates the journal and registers its metrics.
+     *
+     * @param enabled             whether increments held in process are journaled
+     * @param name                the name of the journal, which identifies its checkpoint in the database
+     * @param directory           the directory of the segment files
+     * @param segmentBytes        the size of a segment file
+     * @param segmentMaxAgeMillis the age after which a flush replaces a segment that is not full
+     * @param fsync               whether callers wait until their increments are forced to disk
+     * @param syncTimeoutMillis   the time callers wait for their increments to be forced to disk before failing
+     * @param meterRegistry       the registry used to publish journal metrics
+     */
+    public IncrementJournal(@Value("${increment-config.journal.enabled:false}") boolean enabled,
+                            @Value("${increment-config.journal.name:increment}") String name,
+                            @Value("${increment-config.journal.dir:journal}") String directory,
+                            @Value("${increment-config.journal.segment-bytes:67108864}") int segmentBytes,
+                            @Value("${increment-config.journal.segment-max-age-ms:60000}") long segmentMaxAgeMillis,
+                            @Value("${increment-config.journal.fsync:true}") boolean fsync,
+                            @Value("${increment-config.journal.sync-timeout-ms:5000}") long syncTimeoutMillis,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.name = name;
+        this.directory = Path.of(directory);
+        this.segmentBytes = segmentBytes;
+        this.segmentMaxAgeMillis = segmentMaxAgeMillis;
+        this.fsync = fsync;
+        this.syncTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(syncTimeoutMillis);
+        this.fsyncTimer = Timer.builder("increment.journal.fsync")
+                .description("Time to force a journal segment to disk")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns whether increments are journaled.
+     *
+     * @return {@code true} if the journal is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the name of the journal.
+     *
+     * @return the name identifying the checkpoint of this journal
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Opens the checkpoint and a new segment after the existing ones, which are kept for {@link #replay(long)}, and
+     * starts the sync thread.
+     *
+     * @exception IOException if the segment directory, checkpoint or segment file cannot be created
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        checkpointChannel = FileChannel.open(directory.resolve(CHECKPOINT_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        checkpoint = checkpointChannel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+        // A new checkpoint file reads as 0, which is before the first segment
+        confirmed = checkpoint.getLong(0) > 0 ? checkpoint.getLong(0) : -1;
+        long lastSegment = segmentIds().stream().mapToLong(Long::longValue).max().orElse(0);
+        current = Segment.create(directory, lastSegment + 1, segmentBytes);
+        running = true;
+        if (fsync) {
+            syncer = Thread.ofPlatform().name("increment-journal-sync").daemon().start(this::syncLoop);
+        }
+        log.info("Opened increment journal {}: directory = {}, segment = {}", name, directory, current.id);
+    }
+
+    /**
+     * Stops the sync thread and forces the current segment to disk.
+     */
+    @PreDestroy
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        if (syncer != null) {
+            syncer.interrupt();
+            try {
+                syncer.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        appendLock.lock();
+        try {
+            current.force();
+            current.close();
+            checkpoint.force();
+            checkpointChannel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close journal checkpoint", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Journals an increment and applies it to its holder.
+     * The record is discarded if the holder does not accept the increment.
+     *
+     * @param key   the key to increment
+     * @param delta the value to add
+     * @param apply applies the increment to its holder and returns whether it was accepted
+     * @return the result of {@code apply}; if {@code true}, the increment is durable
+     * @throws QueryTimeoutException if the increment was applied but could not be forced to disk in time
+     */
+    public boolean append(String key, long delta, BooleanSupplier apply) {
+        if (!enabled) {
+            return apply.getAsBoolean();
+        }
+        long position;
+        appendLock.lock();
+        try {
+            if (!appendRecord(key, delta, apply)) {
+                return false;
+            }
+            position = appendedBytes;
+        } finally {
+            appendLock.unlock();
+        }
+        awaitSync(position);
+        return true;
+    }
+
+    /**
+     * Journals several increments and applies them to their holder, waiting for a single sync.
+     *
+     * @param deltas the values to add, keyed by key
+     * @param apply  applies an increment to its holder and returns whether it was accepted
+     * @return the increments that were not accepted, whose records were discarded
+     * @throws QueryTimeoutException if the increments were applied but could not be forced to disk in time
+     */
+    public Map<String, Long> appendAll(Map<String, Long> deltas, BiPredicate<String, Long> apply) {
+        Map<String, Long> rejected = new LinkedHashMap<>();
+        if (!enabled) {
+            deltas.forEach((key, delta) -> {
+                if (!apply.test(key, delta)) {
+                    rejected.put(key, delta);
+                }
+            });
+            return rejected;
+        }
+        long position;
+        appendLock.lock();
+        try {
+            deltas.forEach((key, delta) -> {
+                if (!appendRecord(key, delta, () -> apply.test(key, delta))) {
+                    rejected.put(key, delta);
+                }
+            });
+            position = appendedBytes;
+        } finally {
+            appendLock.unlock();
+        }
+        awaitSync(position);
+        return rejected;
+    }
+
+    /**
+     * Drains the holder of the journaled increments and takes the current journal position, with no append in
+     * between. The current segment is replaced first if it is older than {@code segment-max-age-ms} and not empty.
+     *
+     * @param drain drains the holder
+     * @param <T>   the type of the drained values
+     * @return the drained values and the position after the last record of their increments, -1 if the journal is
+     *         disabled
+     */
+    public <T> Drained<T> drain(Supplier<T> drain) {
+        if (!enabled) {
+            return new Drained<>(-1, drain.get());
+        }
+        appendLock.lock();
+        try {
+            T drained = drain.get();
+            long age = System.currentTimeMillis() - current.createdAt;
+            if (current.buffer.position() > 0 && age >= segmentMaxAgeMillis) {
+                rollSegment();
+            }
+            return new Drained<>(position(current.id, current.buffer.position()), drained);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Records that the increments before a position are persisted and deletes the segments wholly before it.
+     * Must not be called concurrently.
+     *
+     * @param position the confirmed position; records from it on are kept
+     */
+    public void confirm(long position) {
+        if (!enabled || position <= confirmed) {
+            return;
+        }
+        confirmed = position;
+        checkpoint.putLong(0, position);
+        for (long id : segmentIds()) {
+            if (id < segmentOf(position) && id < current.id) {
+                try {
+                    Files.deleteIfExists(segmentPath(directory, id));
+                } catch (IOException e) {
+                    log.warn("Failed to delete confirmed journal segment {}", id, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the increments of the segments left by a previous run, from the later of the given and the confirmed
+     * position.
+     *
+     * @param afterPosition the position up to which increments are known to be persisted, -1 if none
+     * @return the summed increments per key and the last segment read
+     */
+    public Replay replay(long afterPosition) {
+        Map<String, Long> deltas = new HashMap<>();
+        long from = Math.max(afterPosition, confirmed);
+        long lastSegment = from < 0 ? -1 : segmentOf(from) - 1;
+        if (!enabled) {
+            return new Replay(deltas, lastSegment);
+        }
+        for (long id : segmentIds()) {
+            if ((from >= 0 && id < segmentOf(from)) || id >= current.id) {
+                continue;
+            }
+            int offset = from >= 0 && id == segmentOf(from) ? offsetOf(from) : 0;
+            int records = readSegment(segmentPath(directory, id), offset, deltas);
+            log.info("Replayed journal segment {}: records = {}", id, records);
+            lastSegment = Math.max(lastSegment, id);
+        }
+        deltas.values().removeIf(delta -> delta == 0);
+        return new Replay(deltas, lastSegment);
+    }
+
+    /**
+     * Returns the journal position of a byte in a segment.
+     *
+     * @param segment the segment id
+     * @param offset  the byte offset within the segment
+     * @return the position
+     */
+    static long position(long segment, int offset) {
+        return segment << 32 | offset;
+    }
+
+    private static long segmentOf(long position) {
+        return position >>> 32;
+    }
+
+    private static int offsetOf(long position) {
+        return (int) position;
+    }
+
+    private boolean appendRecord(String key, long delta, BooleanSupplier apply) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int recordBytes = RECORD_OVERHEAD + keyBytes.length;
+        if (recordBytes > segmentBytes) {
+            throw new IllegalArgumentException("Key does not fit into a journal segment: " + key);
+        }
+        if (current.buffer.remaining() < recordBytes) {
+            rollSegment();
+        }
+        MappedByteBuffer buffer = current.buffer;
+        int start = buffer.position();
+        buffer.putInt(keyBytes.length).putLong(delta).put(keyBytes);
+        CRC32C checksum = new CRC32C();
+        checksum.update(buffer.slice(start, recordBytes - Integer.BYTES));
+        buffer.putInt((int) checksum.getValue());
+        if (!apply.getAsBoolean()) {
+            // Nothing else can have been appended meanwhile, so the record is simply overwritten with zeros
+            buffer.put(start, new byte[recordBytes]).position(start);
+            return false;
+        }
+        appendedBytes += recordBytes;
+        return true;
+    }
+
+    /**
+     * Forces and closes the current segment and opens the next one. Must be called with the append lock held.
+     */
+    private void rollSegment() {
+        Segment sealed = current;
+        sealed.force();
+        sealed.close();
+        try {
+            current = Segment.create(directory, sealed.id + 1, segmentBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create journal segment " + (sealed.id + 1), e);
+        }
+        markSynced(appendedBytes);
+    }
+
+    private void awaitSync(long position) {
+        if (!fsync) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            syncRequested.signal();
+            long remainingNanos = syncTimeoutNanos;
+            while (syncedBytes < position) {
+                if (!running) {
+                    throw new IllegalStateException("Increment journal is closed");
+                }
+                if (remainingNanos <= 0) {
+                    throw new QueryTimeoutException("Timed out waiting for the increment journal to be forced to disk");
+                }
+                remainingNanos = syncCompleted.awaitNanos(remainingNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for the increment journal", e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void markSynced(long position) {
+        syncLock.lock();
+        try {
+            if (position > syncedBytes) {
+                syncedBytes = position;
+            }
+            syncCompleted.signalAll();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void syncLoop() {
+        long retryMillis = MIN_SYNC_RETRY_MILLIS;
+        while (running) {
+            try {
+                syncLock.lock();
+                try {
+                    while (running && appendedBytes <= syncedBytes) {
+                        syncRequested.await();
+                    }
+                } finally {
+                    syncLock.unlock();
+                }
+                // Every byte up to the target is in this segment or in a sealed one, which was forced when sealed
+                long target = appendedBytes;
+                Segment segment = current;
+                long start = System.nanoTime();
+                segment.force();
+                fsyncTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                markSynced(target);
+                retryMillis = MIN_SYNC_RETRY_MILLIS;
+            } catch (InterruptedException e) {
+                if (running) {
+                    continue;
+                }
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Failed to sync increment journal, retrying in {} ms", retryMillis, e);
+                try {
+                    Thread.sleep(retryMillis);
+                } catch (InterruptedException interrupted) {
+                    if (!running) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                retryMillis = Math.min(MAX_SYNC_RETRY_MILLIS, retryMillis * 2);
+            }
+        }
+        markSynced(Long.MAX_VALUE);
+    }
+
+    private static int readSegment(Path path, int offset, Map<String, Long> deltas) {
+        int records = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.position(Math.min(offset, buffer.limit()));
+            while (buffer.remaining() >= RECORD_OVERHEAD) {
+                int start = buffer.position();
+                int keyLength = buffer.getInt();
+                if (keyLength <= 0 || keyLength > buffer.remaining() - Long.BYTES - Integer.BYTES) {
+                    break;
+                }
+                long delta = buffer.getLong();
+                byte[] keyBytes = new byte[keyLength];
+                buffer.get(keyBytes);
+                CRC32C checksum = new CRC32C();
+                checksum.update(buffer.slice(start, RECORD_OVERHEAD - Integer.BYTES + keyLength));
+                if (buffer.getInt() != (int) checksum.getValue()) {
+                    log.warn("Stopped replay of {} at a corrupt record, position = {}", path, start);
+                    break;
+                }
+                deltas.merge(new String(keyBytes, StandardCharsets.UTF_8), delta, Long::sum);
+                records++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read journal segment " + path, e);
+        }
+        return records;
+    }
+
+    private List<Long> segmentIds() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(file -> file.startsWith(SEGMENT_PREFIX) && file.endsWith(SEGMENT_SUFFIX))
+                    .map(file -> Long.parseLong(file, SEGMENT_PREFIX.length(),
+                            file.length() - SEGMENT_SUFFIX.length(), 10))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list journal segments in " + directory, e);
+        }
+    }
+
+    private static Path segmentPath(Path directory, long id) {
+        return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Values drained by {@link #drain(Supplier)} and the journal position after their increments.
+     *
+     * @param position the position to confirm once the values are persisted
+     * @param value    the drained values
+     * @param <T>      the type of the drained values
+     */
+    public record Drained<T>(long position, T value) {
+    }
+
+    /**
+     * Increments read by {@link #replay(long)}.
+     *
+     * @param deltas      the summed increments per key
+     * @param lastSegment the last segment read, to confirm once the increments are persisted
+     */
+    public record Replay(Map<String, Long> deltas, long lastSegment) {
+    }
+
+    /**
+     * A memory-mapped segment file.
+     */
+    private static final class Segment {
+
+        private final long id;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final long createdAt = System.currentTimeMillis();
+
+        private Segment(long id, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        private static Segment create(Path directory, long id, int size) throws IOException {
+            FileChannel channel = FileChannel.open(segmentPath(directory, id), StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new Segment(id, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+
+        private void force() {
+            buffer.force();
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close journal segment {}", id, e);
+            }
+        }
+    }
+}
@@ -1,108 +1,176 @@
 package com.incrementservice.service;
 
-import com.incrementservice.entity.SumEntity;
-import com.incrementservice.repository.SumRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Handles saving and updating data in Redis to keep the value in the memory and minimize database write frequency
- * On receiving a request for a new key, it stores the key with an expiration time of 10 seconds.
- * If the key is accessed again within this period, only the value is incremented.
- * Additionally, a shadow key is used to track the value; a Redis subscriber shall use this shadow key to fetch the sum and update the database.
+ * Handles saving and updating data in the {@link CounterStore} to keep the value in the memory and minimize database
+ * write frequency; the store persists its counters to the database in the background.
+ * When the {@link IncrementBuffer} is enabled, increments are first coalesced in memory and written to the store in
+ * bulk. When the {@link IncrementBatcher} is enabled instead, concurrent requests share store writes and wait for them.
+ * With the {@link IncrementJournal} enabled, buffered increments are journaled, and increments of a crashed run are
+ * replayed into the buffer on startup; a segment is confirmed once a flush has written all of its increments to the
+ * store, so increments of a flush that only partially succeeded may be replayed twice (at-least-once).
+ * Every increment is counted by the {@link TopKeysTracker}, whatever path it takes to the store.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class IncrementService {
 
-    private final RedisTemplate<String, Integer> redisTemplate;
-    private final SumRepository sumRepository;
+    private final CounterStore counterStore;
+    private final IncrementBuffer incrementBuffer;
+    private final IncrementBatcher incrementBatcher;
+    private final IncrementJournal incrementJournal;
+    private final TopKeysTracker topKeysTracker;
+    private final ReentrantLock flushLock = new ReentrantLock();
 
     /**
-     * Saves or updates a value in Redis.
+     * Saves or updates a value in the counter store.
+     * If write coalescing is enabled, the value is buffered in memory and reaches the store on the next buffer flush.
+     * If micro-batching is enabled, the value is written together with concurrent requests.
      *
      * @param key   the key to save or update
      * @param value the value to save or increment
      */
-    public void saveOrUpdateDataInRedis(String key, Integer value) {
-        String shadowKey = createShadowKey(key);
+    public void saveOrUpdateDataInRedis(String key, long value) {
+        topKeysTracker.record(key);
+        if (incrementBuffer.isEnabled() && incrementJournal.append(key, value, () -> incrementBuffer.add(key, value))) {
+            if (incrementBuffer.isFlushDue()) {
+                flushBuffer();
+            }
+            return;
+        }
+        if (incrementBatcher.isEnabled() && incrementBatcher.increment(key, value)) {
+            return;
+        }
+        counterStore.increment(key, value);
+    }
 
-        // Log the operation
-        log.info("Saving/updating data in Redis: key = {}, value = {}", key, value);
+    /**
+     * Replays the buffered increments left in the journal by a previous run into the buffer.
+     * They are not journaled again: their records are confirmed by the next successful flush.
+     */
+    @PostConstruct
+    public void replayJournal() {
+        if (!incrementJournal.isEnabled()) {
+            return;
+        }
+        if (counterStore instanceof MemoryCounterStore) {
+            if (incrementBuffer.isEnabled()) {
+                throw new IllegalStateException("The increment journal cannot be used with both the buffer and the "
+                        + "in-memory store, which journals its own increments");
+            }
+            return;
+        }
+        if (!incrementBuffer.isEnabled()) {
+            log.warn("The increment journal only covers buffered increments, but the buffer is disabled");
+            return;
+        }
+        IncrementJournal.Replay replay = incrementJournal.replay(-1);
+        replay.deltas().forEach(incrementBuffer::restore);
+        log.info("Replayed journaled increments into the buffer: keys = {}", replay.deltas().size());
+    }
 
-        if (Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
-            redisTemplate.opsForValue().increment(key, value);
-            redisTemplate.opsForValue().increment(shadowKey, value);
-            log.info("Incremented existing key: {}, shadowKey: {}", key, shadowKey);
-        } else {
-            //Holds the value in Redis and sets 10 seconds for the first time
-            redisTemplate.opsForValue().set(key, value, Duration.ofSeconds(10));
-            redisTemplate.opsForValue().set(shadowKey, value);
-            log.info("Set new key with expiration: key = {}, shadowKey: {}, duration = 10 seconds", key, shadowKey);
+    /**
+     * Starts the micro-batching worker, which writes batches through the same store call as the batch endpoint.
+     */
+    @PostConstruct
+    public void startBatcher() {
+        if (incrementBatcher.isEnabled()) {
+            incrementBatcher.start(counterStore::incrementAll);
         }
     }
 
     /**
-     * Processes an expired Redis key.
+     * Saves or updates a batch of values in the counter store.
+     * All keys are written in one store call (a single pipeline for Redis), unless write coalescing is enabled, in
+     * which case the values are buffered like single increments. The store may fail some keys and write the others,
+     * so the failed keys are returned for the caller to retry only those.
      *
-     * @param expiredKey the expired key
+     * @param deltas the values to add, keyed by key; duplicate keys must already be summed
+     * @return the values that could not be written, keyed by key, empty if all were written or buffered
      */
-    public void processExpiredKey(String expiredKey) {
-        String shadowKey = createShadowKey(expiredKey);
-        Integer value = redisTemplate.opsForValue().get(shadowKey);
-        if (value != null) {
-            Boolean isLocked = redisTemplate.opsForValue().setIfAbsent(shadowKey, value, Duration.ofSeconds(10));
-            if (Boolean.TRUE.equals(isLocked)) {
-                try {
-                    log.info("Found value in shadow key: {}, value = {}", shadowKey, value);
-                    updateOrInsertRecord(expiredKey, value);
-                    redisTemplate.delete(shadowKey);
-                    log.info("Deleted shadow key: {}", shadowKey);
-                } finally {
-                    redisTemplate.delete(shadowKey); // Release the lock after processing
-                }
+    public Map<String, Long> saveOrUpdateBatchInRedis(Map<String, Long> deltas) {
+        log.debug("Saving/updating batch in Redis: keys = {}", deltas.size());
+        topKeysTracker.recordAll(deltas.keySet());
+
+        Map<String, Long> unbuffered = deltas;
+        if (incrementBuffer.isEnabled()) {
+            unbuffered = incrementJournal.appendAll(deltas, incrementBuffer::add);
+            if (incrementBuffer.isFlushDue()) {
+                flushBuffer();
             }
         }
+        if (unbuffered.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, Long> failed = counterStore.incrementAll(unbuffered);
+        if (!failed.isEmpty()) {
+            log.warn("Failed to increment {} of {} keys of a batch", failed.size(), unbuffered.size());
+        }
+        return failed;
     }
 
     /**
-     * Creates a shadow key name.
-     *
-     * @param key the original key
-     * @return the shadow key name
+     * Drains the in-process buffer and writes one summed increment per key to the counter store.
+     * Skipped if another flush is already running.
      */
-    private String createShadowKey(String key) {
-        String shadowKey = "shadow:" + key;
-        log.debug("Created shadow key: {}", shadowKey);
-        return shadowKey;
+    @Scheduled(fixedDelayString = "${increment-config.buffer.flush-interval-ms:100}")
+    public void flushBuffer() {
+        if (!incrementBuffer.isEnabled() || !flushLock.tryLock()) {
+            return;
+        }
+        try {
+            drainBufferToStore();
+        } finally {
+            flushLock.unlock();
+        }
     }
 
     /**
-     * Updates or inserts a record in the database.
-     *
-     * @param expiredKey the expired Redis key
-     * @param value      the value to add to the database
+     * Flushes whatever is left in the buffer before the application shuts down, waiting for a running flush to finish.
      */
-    void updateOrInsertRecord(String expiredKey, Integer value) {
-        log.info("Updating or inserting record for key: {}, value = {}", expiredKey, value);
-
-        Optional<SumEntity> existingRecordOpt = sumRepository.findByKey(expiredKey);
+    @PreDestroy
+    public void flushBufferOnShutdown() {
+        if (!incrementBuffer.isEnabled()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            drainBufferToStore();
+        } finally {
+            flushLock.unlock();
+        }
+    }
 
-        if (existingRecordOpt.isPresent()) {
-            SumEntity existingRecord = existingRecordOpt.get();
-            existingRecord.setSum(existingRecord.getSum() + value);
-            sumRepository.save(existingRecord);
-            log.info("Updated existing record: key = {}, new sum = {}", expiredKey, existingRecord.getSum());
-        } else {
-            SumEntity newRecord = SumEntity.builder().key(expiredKey).sum(value).build();
-            sumRepository.save(newRecord);
-            log.info("Inserted new record: key = {}, sum = {}", expiredKey, value);
+    /**
+     * Writes the drained buffer to the counter store. Deltas that cannot be written are put back into the buffer and
+     * retried on the next flush; the journal is only confirmed up to the drained position if all deltas were written.
+     */
+    private void drainBufferToStore() {
+        IncrementJournal.Drained<Map<String, Long>> journaled = incrementJournal.drain(incrementBuffer::drain);
+        Map<String, Long> drained = journaled.value();
+        if (drained.isEmpty()) {
+            return;
+        }
+        Map<String, Long> failed;
+        try {
+            failed = counterStore.incrementAll(drained);
+        } catch (RuntimeException e) {
+            log.error("Failed to flush {} buffered keys", drained.size(), e);
+            failed = drained;
+        }
+        failed.forEach(incrementBuffer::restore);
+        if (failed.isEmpty()) {
+            incrementJournal.confirm(journaled.position());
         }
     }
 }
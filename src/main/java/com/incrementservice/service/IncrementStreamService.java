@@ -0,0 +1,225 @@
+package com.incrementservice.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.incrementservice.dto.IncrementRequest;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongPredicate;
+
+/**
+ * Ingests newline-delimited JSON increment requests of any length with constant memory.
+ * Records are read one at a time with the Jackson streaming parser, bound and validated like a single
+ * {@link IncrementRequest}, and summed per key into a window of at most {@code window-keys} keys and
+ * {@code window-records} records. Every full window is written to the counter store as one batch before the next
+ * record is read, so the body is never held in memory. If the counter store fails some keys of a window, the stream
+ * ends there and its result lists them, since the other keys of the window were written.
+ */
+@Service
+@Slf4j
+public class IncrementStreamService {
+
+    private final IncrementService incrementService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int windowKeys;
+    private final int windowRecords;
+
+    /**
+     * Creates the service.
+     *
+     * @param incrementService the service writing the windows to the counter store
+     * @param objectMapper     the object mapper binding the records
+     * @param validator        the validator applying the constraints of {@link IncrementRequest}
+     * @param windowKeys       the maximum number of distinct keys of a window
+     * @param windowRecords    the maximum number of records of a window
+     */
+    public IncrementStreamService(IncrementService incrementService, ObjectMapper objectMapper, Validator validator,
+                                  @Value("${increment-config.stream.window-keys:1000}") int windowKeys,
+                                  @Value("${increment-config.stream.window-records:10000}") int windowRecords) {
+        this.incrementService = incrementService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.windowKeys = windowKeys;
+        this.windowRecords = windowRecords;
+    }
+
+    /**
+     * Reads and writes the records of a stream until its end.
+     * Records that cannot be bound, fail validation or would overflow the sum of their key within a window are skipped;
+     * a syntax error ends the stream, as the parser cannot find the start of the next record. Windows written before
+     * the stream ends stay written; if some keys of a window fail, the records of the other keys of that window stay
+     * written too.
+     *
+     * @param body        the newline-delimited JSON records
+     * @param admitWindow decides, given its number of records, whether a window may be written; the stream ends
+     *                    without writing it otherwise
+     * @return the number of written, skipped and failed records, and how the stream ended
+     * @exception IOException if the body cannot be read
+     */
+    public StreamResult ingest(InputStream body, LongPredicate admitWindow) throws IOException {
+        Window window = new Window();
+        long rejected = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            while (parser.nextToken() != null) {
+                IncrementRequest request = readRecord(parser);
+                if (request == null || !validator.validate(request).isEmpty() || !window.add(request)) {
+                    rejected++;
+                    continue;
+                }
+                if (window.deltas.size() >= windowKeys || window.records >= windowRecords) {
+                    if (!admitWindow.test(window.records)) {
+                        return new StreamResult(window.written, rejected, Outcome.RATE_LIMITED);
+                    }
+                    if (!window.flush()) {
+                        return window.failure(rejected);
+                    }
+                }
+            }
+        } catch (StreamReadException e) {
+            log.warn("Stopping malformed increment stream: {}", e.getOriginalMessage());
+            return new StreamResult(window.written, rejected, Outcome.MALFORMED);
+        }
+        if (window.records > 0) {
+            if (!admitWindow.test(window.records)) {
+                return new StreamResult(window.written, rejected, Outcome.RATE_LIMITED);
+            }
+            if (!window.flush()) {
+                return window.failure(rejected);
+            }
+        }
+        return new StreamResult(window.written, rejected, Outcome.COMPLETED);
+    }
+
+    /**
+     * Binds the record starting at the current token, leaving the parser at its last token.
+     *
+     * @return the request, or {@code null} if the record cannot be bound to an {@link IncrementRequest}
+     */
+    private IncrementRequest readRecord(JsonParser parser) throws IOException {
+        try {
+            return objectMapper.readValue(parser, IncrementRequest.class);
+        } catch (DatabindException e) {
+            // Skips the rest of the record, which is still well-formed JSON
+            while (!parser.getParsingContext().inRoot()) {
+                parser.nextToken();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Outcome of a stream.
+     * The records read are the first {@code accepted + rejected + failed} records of the stream; the failed ones are
+     * the last {@code failed} of them whose key is among the failed keys.
+     *
+     * @param accepted   the number of records written to the counter store
+     * @param rejected   the number of invalid records skipped
+     * @param failed     the number of records of the last window that could not be written
+     * @param failedKeys the keys of the failed records
+     * @param outcome    how the stream ended
+     */
+    public record StreamResult(long accepted, long rejected, long failed, List<String> failedKeys, Outcome outcome) {
+
+        /**
+         * Creates the outcome of a stream without failed records.
+         *
+         * @param accepted the number of records written to the counter store
+         * @param rejected the number of invalid records skipped
+         * @param outcome  how the stream ended
+         */
+        public StreamResult(long accepted, long rejected, Outcome outcome) {
+            this(accepted, rejected, 0, List.of(), outcome);
+        }
+    }
+
+    /**
+     * How a stream ended.
+     */
+    public enum Outcome {
+
+        /**
+         * All records were read.
+         */
+        COMPLETED,
+
+        /**
+         * A window was not admitted by the rate limiter.
+         */
+        RATE_LIMITED,
+
+        /**
+         * The body is not well-formed JSON.
+         */
+        MALFORMED,
+
+        /**
+         * Some keys of a window could not be written to the counter store.
+         */
+        FAILED
+    }
+
+    /**
+     * Increments of the records read since the last written window, and the number of records written before.
+     */
+    private final class Window {
+
+        private Map<String, Long> deltas = new LinkedHashMap<>();
+        private Map<String, Long> keyRecords = new HashMap<>();
+        private long records;
+        private long written;
+        private Map<String, Long> failed = Map.of();
+
+        /**
+         * Adds a record to the sum of its key.
+         *
+         * @return {@code false} if the record was skipped because the sum would overflow a 64-bit value
+         */
+        private boolean add(IncrementRequest request) {
+            try {
+                deltas.merge(request.getKey(), request.getValue(), Math::addExact);
+            } catch (ArithmeticException e) {
+                return false;
+            }
+            keyRecords.merge(request.getKey(), 1L, Long::sum);
+            records++;
+            return true;
+        }
+
+        /**
+         * Writes the window and starts the next one, unless some keys failed.
+         *
+         * @return {@code true} if all records were written
+         */
+        private boolean flush() {
+            failed = incrementService.saveOrUpdateBatchInRedis(deltas);
+            if (!failed.isEmpty()) {
+                log.warn("Stopping increment stream, failed to increment {} of {} keys", failed.size(), deltas.size());
+                return false;
+            }
+            written += records;
+            deltas = new LinkedHashMap<>();
+            keyRecords = new HashMap<>();
+            records = 0;
+            return true;
+        }
+
+        private StreamResult failure(long rejected) {
+            long failedRecords = failed.keySet().stream().mapToLong(keyRecords::get).sum();
+            return new StreamResult(written + records - failedRecords, rejected, failedRecords,
+                    new ArrayList<>(failed.keySet()), Outcome.FAILED);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.incrementservice.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps counters in the JVM, for deployments running a single instance without Redis.
+ * Every key has a {@link LongAdder}, whose striped cells let concurrent requests increment a hot key without
+ * contending on one memory location, so an increment is a map lookup and an add without any I/O.
+ * The {@link MemoryFlushService} periodically drains the counters into pending values, persists them and acknowledges
+ * them; pending values that fail to persist are drained again with the next flush. Counters that receive no increment
+ * for {@code retire-after-flushes} flushes are dropped; a dropped counter is drained once more on the following flush,
+ * which collects increments of requests that looked it up just before it was dropped, and a request that finds its
+ * counter dropped after adding to it moves what is left of it into the counter that replaced it.
+ * Values that are not flushed yet are lost if the JVM exits without running the shutdown flush, unless the
+ * {@link IncrementJournal} is enabled, in which case increments are journaled before they are applied.
+ * The {@code increment.flush.lag} timer records, once per flush, the time from the oldest increment of the flush to
+ * the acknowledgement of its values.
+ */
+@Component
+@ConditionalOnProperty(name = "increment-config.store", havingValue = "memory")
+@Slf4j
+public class MemoryCounterStore implements CounterStore {
+
+    private final int retireAfterFlushes;
+    private final IncrementJournal incrementJournal;
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> retired = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> pending = new ConcurrentHashMap<>();
+    private final AtomicLong firstIncrementAt = new AtomicLong();
+    private final Timer flushLagTimer;
+    private long firstPendingIncrementAt;
+
+    /**
+     * Creates the store and registers its metrics.
+     *
+     * @param retireAfterFlushes the number of flushes without increments after which a counter is dropped
+     * @param incrementJournal   the journal of increments that are not flushed yet
+     * @param meterRegistry      the registry used to publish store metrics
+     */
+    public MemoryCounterStore(@Value("${increment-config.memory.retire-after-flushes:60}") int retireAfterFlushes,
+                              IncrementJournal incrementJournal, MeterRegistry meterRegistry) {
+        this.retireAfterFlushes = retireAfterFlushes;
+        this.incrementJournal = incrementJournal;
+        Gauge.builder("increment.memory.counters", counters, Map::size)
+                .description("Keys with an in-memory counter")
+                .register(meterRegistry);
+        Gauge.builder("increment.unflushed.delta", this, MemoryCounterStore::unflushedDelta)
+                .description("Sum of the values that are not persisted yet")
+                .register(meterRegistry);
+        this.flushLagTimer = Timer.builder("increment.flush.lag")
+                .description("Time from the first unflushed increment of a counter to the write of its value")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(100))
+                .maximumExpectedValue(Duration.ofMinutes(10))
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void increment(String key, long delta) {
+        if (incrementJournal.isEnabled()) {
+            incrementJournal.append(key, delta, () -> add(key, delta));
+        } else {
+            add(key, delta);
+        }
+    }
+
+    @Override
+    public Map<String, Long> incrementAll(Map<String, Long> deltas) {
+        if (incrementJournal.isEnabled()) {
+            return incrementJournal.appendAll(deltas, this::add);
+        }
+        deltas.forEach(this::add);
+        return Map.of();
+    }
+
+    @Override
+    public Map<String, Long> unflushedValues(Collection<String> keys) {
+        Map<String, Long> values = new HashMap<>();
+        for (String key : keys) {
+            Counter counter = counters.get(key);
+            Counter retiredCounter = retired.get(key);
+            long value = (counter == null ? 0 : counter.sum()) + (retiredCounter == null ? 0 : retiredCounter.sum());
+            values.put(key, value + pending.getOrDefault(key, 0L));
+        }
+        return values;
+    }
+
+    /**
+     * Adds values replayed from the journal to the pending values, without journaling them again.
+     *
+     * @param deltas the values to add, keyed by key
+     */
+    void restore(Map<String, Long> deltas) {
+        deltas.forEach((key, delta) -> pending.merge(key, delta, Long::sum));
+    }
+
+    /**
+     * Moves the values of all counters into pending values. Must not be called concurrently.
+     *
+     * @return the pending value of every key, including values of earlier unacknowledged drains
+     */
+    Map<String, Long> drain() {
+        long drainedFirstIncrementAt = firstIncrementAt.getAndSet(0);
+        if (firstPendingIncrementAt == 0) {
+            firstPendingIncrementAt = drainedFirstIncrementAt;
+        }
+        retired.forEach(this::drainInto);
+        retired.clear();
+        for (Iterator<Map.Entry<String, Counter>> it = counters.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Counter> entry = it.next();
+            Counter counter = entry.getValue();
+            if (drainInto(entry.getKey(), counter)) {
+                counter.idleFlushes = 0;
+            } else if (++counter.idleFlushes >= retireAfterFlushes && counters.remove(entry.getKey(), counter)) {
+                retired.put(entry.getKey(), counter);
+            }
+        }
+        return new LinkedHashMap<>(pending);
+    }
+
+    /**
+     * Discards pending values after they have been persisted. Must not be called concurrently with {@link #drain()}.
+     *
+     * @param keys the persisted keys
+     */
+    void acknowledge(Collection<String> keys) {
+        keys.forEach(pending::remove);
+        if (pending.isEmpty() && firstPendingIncrementAt != 0) {
+            flushLagTimer.record(System.currentTimeMillis() - firstPendingIncrementAt, TimeUnit.MILLISECONDS);
+            firstPendingIncrementAt = 0;
+        }
+    }
+
+    private boolean add(String key, long delta) {
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(key, k -> new Counter());
+        }
+        counter.add(delta);
+        if (counters.get(key) != counter) {
+            // A flush dropped this counter and may have drained it for the last time; move what it did not collect
+            long residue = counter.sumThenReset();
+            if (residue != 0) {
+                return add(key, residue);
+            }
+        }
+        if (firstIncrementAt.get() == 0) {
+            firstIncrementAt.compareAndSet(0, System.currentTimeMillis());
+        }
+        return true;
+    }
+
+    private double unflushedDelta() {
+        long delta = 0;
+        for (Counter counter : counters.values()) {
+            delta += counter.sum();
+        }
+        for (long value : pending.values()) {
+            delta += value;
+        }
+        return delta;
+    }
+
+    private boolean drainInto(String key, Counter counter) {
+        long value = counter.sumThenReset();
+        if (value == 0) {
+            return false;
+        }
+        pending.merge(key, value, Long::sum);
+        return true;
+    }
+
+    /**
+     * Counter of one key; the idle flush count is only touched by the flushing thread.
+     */
+    private static final class Counter extends LongAdder {
+
+        private int idleFlushes;
+    }
+}
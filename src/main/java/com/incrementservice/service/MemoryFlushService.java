@@ -0,0 +1,102 @@
+package com.incrementservice.service;
+
+import com.incrementservice.repository.JournalCheckpointRepository;
+import com.incrementservice.repository.SumRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Persists the counters of the {@link MemoryCounterStore} to the database on a fixed schedule.
+ * Every flush drains all counters and writes the drained values as a single batch of upserts; values whose write fails
+ * stay pending in the store and are written with the next flush.
+ * With the {@link IncrementJournal} enabled, the last journal segment of a flush is recorded in the transaction of its
+ * sums, so on startup exactly the segments that are not persisted yet are replayed into the store.
+ * Persisted values are also handed to the {@link CounterHistoryService}, which writes them in the background.
+ */
+@Service
+@ConditionalOnProperty(name = "increment-config.store", havingValue = "memory")
+@RequiredArgsConstructor
+@Slf4j
+public class MemoryFlushService {
+
+    private final MemoryCounterStore counterStore;
+    private final SumRepository sumRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final SumQueryService sumQueryService;
+    private final IncrementJournal incrementJournal;
+    private final JournalCheckpointRepository checkpointRepository;
+    private final CounterHistoryService counterHistoryService;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private long confirmedPosition = -1;
+
+    /**
+     * Deletes the journal segments persisted before the last shutdown and replays the later increments into the store.
+     */
+    @PostConstruct
+    public void replayJournal() {
+        if (!incrementJournal.isEnabled()) {
+            return;
+        }
+        confirmedPosition = checkpointRepository.findPosition(incrementJournal.getName());
+        incrementJournal.confirm(confirmedPosition);
+        IncrementJournal.Replay replay = incrementJournal.replay(confirmedPosition);
+        counterStore.restore(replay.deltas());
+        log.info("Replayed journaled increments: keys = {}, segments up to {}", replay.deltas().size(),
+                replay.lastSegment());
+    }
+
+    /**
+     * Drains the counters and persists their values.
+     */
+    @Scheduled(fixedDelayString = "${increment-config.memory.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            IncrementJournal.Drained<Map<String, Long>> journaled = incrementJournal.drain(counterStore::drain);
+            Map<String, Long> drained = journaled.value();
+            if (drained.isEmpty() && journaled.position() <= confirmedPosition) {
+                return;
+            }
+            Map<String, Long> flushed = new LinkedHashMap<>();
+            drained.forEach((key, value) -> {
+                if (value != 0) {
+                    flushed.put(key, value);
+                }
+            });
+            transactionTemplate.executeWithoutResult(status -> {
+                sumRepository.upsertAll(flushed);
+                if (incrementJournal.isEnabled()) {
+                    checkpointRepository.save(incrementJournal.getName(), journaled.position());
+                }
+            });
+            counterStore.acknowledge(drained.keySet());
+            confirmedPosition = journaled.position();
+            incrementJournal.confirm(journaled.position());
+            sumQueryService.invalidate(drained.keySet());
+            counterHistoryService.record(flushed, System.currentTimeMillis());
+            log.info("Flushed in-memory counters: persisted = {}", flushed.size());
+        } catch (RuntimeException e) {
+            log.error("Failed to flush in-memory counters, they will be retried with the next flush", e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Persists the remaining values before the application shuts down.
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,282 @@
+package com.incrementservice.service;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import io.github.bucket4j.distributed.proxy.RemoteAsyncBucketBuilder;
+import io.github.bucket4j.distributed.proxy.RemoteBucketBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Consumes rate limit tokens from the distributed per-client buckets.
+ * Batch requests are charged one token per request, or one token per item when
+ * {@code increment-config.rate-limit.count-batch-items} is enabled.
+ * <p>
+ * In {@code hybrid} mode, every instance reserves chunks of {@code reserve-chunk} tokens per client from the
+ * distributed bucket and serves requests from that local reserve, so only one request in a chunk pays a Redis round
+ * trip. Tokens are taken from the distributed bucket before they are served, so the limit is never exceeded and
+ * {@code max-overshoot} does not apply. Every {@code sync-interval-ms}, the unused reserves of all clients are given
+ * back to the distributed bucket, so a reserve never holds tokens another instance could serve for longer than that,
+ * and clients idle for an interval are forgotten. A reserve taken for a client that was forgotten meanwhile is given
+ * back right away. Reservations of one client are serialized, for the asynchronous proxies too, so concurrent requests
+ * finding the reserve empty take a single chunk.
+ * </p>
+ * <p>
+ * The reactive web stack consumes tokens with {@link #tryConsumeAsync(String, long)}, which uses the asynchronous
+ * proxies of the same distributed buckets and never blocks the calling thread.
+ * </p>
+ * <p>
+ * Every decision is counted by the {@code increment.rate.limit} counter tagged with its result, {@code allowed} or
+ * {@code denied}; clients are not tagged, so the number of counters stays bounded.
+ * </p>
+ */
+@Service
+@Slf4j
+public class RateLimitService {
+
+    static final String MODE_HYBRID = "hybrid";
+
+    private final RemoteBucketBuilder<String> bucketBuilder;
+    private final RemoteAsyncBucketBuilder<String> asyncBucketBuilder;
+    private final Supplier<BucketConfiguration> bucketConfiguration;
+    private final boolean countBatchItems;
+    private final boolean hybrid;
+    private final long reserveChunk;
+    private final long syncIntervalMillis;
+    private final Map<String, ClientState> clients = new ConcurrentHashMap<>();
+    private final Counter allowedCounter;
+    private final Counter deniedCounter;
+
+    /**
+     * Creates the rate limit service.
+     *
+     * @param bucketBuilder       the builder of the distributed buckets
+     * @param asyncBucketBuilder  the builder of the asynchronous proxies of the distributed buckets
+     * @param bucketConfiguration the configuration of a client bucket
+     * @param countBatchItems     whether batch requests are charged per item instead of per request
+     * @param mode                {@code distributed} to consume every token from Redis, {@code hybrid} to serve tokens
+     *                            from local reserves
+     * @param reserveChunk        the number of tokens reserved from the distributed bucket at once in hybrid mode
+     * @param syncIntervalMillis  the interval at which unused reserved tokens are given back, in milliseconds
+     * @param meterRegistry       the registry used to publish rate limit metrics
+     */
+    public RateLimitService(RemoteBucketBuilder<String> bucketBuilder,
+                            RemoteAsyncBucketBuilder<String> asyncBucketBuilder,
+                            Supplier<BucketConfiguration> bucketConfiguration,
+                            @Value("${increment-config.rate-limit.count-batch-items:false}") boolean countBatchItems,
+                            @Value("${increment-config.rate-limit.mode:distributed}") String mode,
+                            @Value("${increment-config.rate-limit.reserve-chunk:5}") long reserveChunk,
+                            @Value("${increment-config.rate-limit.sync-interval-ms:1000}") long syncIntervalMillis,
+                            MeterRegistry meterRegistry) {
+        this.bucketBuilder = bucketBuilder;
+        this.asyncBucketBuilder = asyncBucketBuilder;
+        this.bucketConfiguration = bucketConfiguration;
+        this.countBatchItems = countBatchItems;
+        this.hybrid = MODE_HYBRID.equals(mode);
+        this.reserveChunk = reserveChunk;
+        this.syncIntervalMillis = syncIntervalMillis;
+        this.allowedCounter = Counter.builder("increment.rate.limit")
+                .description("Rate limit decisions")
+                .tag("result", "allowed")
+                .register(meterRegistry);
+        this.deniedCounter = Counter.builder("increment.rate.limit")
+                .description("Rate limit decisions")
+                .tag("result", "denied")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Tries to consume tokens from the bucket of a client.
+     *
+     * @param clientId the client identifier, e.g. its IP address
+     * @param tokens   the number of tokens to consume
+     * @return {@code true} if the tokens were consumed, {@code false} if the client is rate limited
+     */
+    public boolean tryConsume(String clientId, long tokens) {
+        return count(consume(clientId, tokens));
+    }
+
+    private boolean consume(String clientId, long tokens) {
+        ClientState client = client(clientId);
+        if (!hybrid) {
+            ConsumptionProbe probe = client.bucket.tryConsumeAndReturnRemaining(tokens);
+            log.debug("Remaining tokens for client {}: {}", clientId, probe.getRemainingTokens());
+            return probe.isConsumed();
+        }
+        if (client.takeReserved(tokens)) {
+            return true;
+        }
+        return client.reserveAndTake(tokens);
+    }
+
+    /**
+     * Tries to consume tokens from the bucket of a client without blocking.
+     *
+     * @param clientId the client identifier, e.g. its IP address
+     * @param tokens   the number of tokens to consume
+     * @return a future completed with {@code true} if the tokens were consumed, {@code false} if the client is rate
+     * limited
+     */
+    public CompletableFuture<Boolean> tryConsumeAsync(String clientId, long tokens) {
+        return consumeAsync(clientId, tokens).thenApply(this::count);
+    }
+
+    private CompletableFuture<Boolean> consumeAsync(String clientId, long tokens) {
+        ClientState client = client(clientId);
+        if (!hybrid) {
+            return client.asyncBucket().tryConsumeAndReturnRemaining(tokens).thenApply(probe -> {
+                log.debug("Remaining tokens for client {}: {}", clientId, probe.getRemainingTokens());
+                return probe.isConsumed();
+            });
+        }
+        if (client.takeReserved(tokens)) {
+            return CompletableFuture.completedFuture(true);
+        }
+        return client.reserveAndTakeAsync(tokens);
+    }
+
+    private boolean count(boolean consumed) {
+        (consumed ? allowedCounter : deniedCounter).increment();
+        return consumed;
+    }
+
+    /**
+     * Returns whether batch requests are charged one token per item.
+     *
+     * @return {@code true} if batch items are counted individually
+     */
+    public boolean isCountBatchItems() {
+        return countBatchItems;
+    }
+
+    /**
+     * Gives the unused reserved tokens of every client back to the distributed buckets and forgets clients that have
+     * been idle for a sync interval, which keeps the number of tracked clients bounded by the recently active ones.
+     */
+    @Scheduled(fixedDelayString = "${increment-config.rate-limit.sync-interval-ms:1000}")
+    public void syncReserves() {
+        long idleSince = System.currentTimeMillis() - syncIntervalMillis;
+        clients.forEach((clientId, client) -> {
+            if (client.lastAccessMillis < idleSince) {
+                clients.remove(clientId, client);
+            }
+            long unused = client.reserved.getAndSet(0);
+            if (unused > 0) {
+                client.bucket.addTokens(unused);
+                log.debug("Returned {} reserved tokens of client {}", unused, clientId);
+            }
+        });
+    }
+
+    private ClientState client(String clientId) {
+        ClientState client = clients.computeIfAbsent(clientId,
+                id -> new ClientState(id, bucketBuilder.build(id, bucketConfiguration)));
+        client.lastAccessMillis = System.currentTimeMillis();
+        return client;
+    }
+
+    /**
+     * Rate limit state of one client on this instance.
+     */
+    private final class ClientState {
+
+        private final String clientId;
+        private final Bucket bucket;
+        private final AtomicLong reserved = new AtomicLong();
+        private final ReentrantLock reserveLock = new ReentrantLock();
+        private final AtomicReference<CompletableFuture<Void>> lastAsyncReserve =
+                new AtomicReference<>(CompletableFuture.completedFuture(null));
+        private volatile AsyncBucketProxy asyncBucket;
+        private volatile long lastAccessMillis;
+
+        private ClientState(String clientId, Bucket bucket) {
+            this.clientId = clientId;
+            this.bucket = bucket;
+        }
+
+        private AsyncBucketProxy asyncBucket() {
+            // Built on first use, so the servlet stack never creates asynchronous proxies; a racing duplicate is
+            // harmless as both proxies act on the same distributed bucket
+            AsyncBucketProxy proxy = asyncBucket;
+            if (proxy == null) {
+                proxy = asyncBucketBuilder.build(clientId,
+                        () -> CompletableFuture.completedFuture(bucketConfiguration.get()));
+                asyncBucket = proxy;
+            }
+            return proxy;
+        }
+
+        private boolean takeReserved(long tokens) {
+            long available = reserved.get();
+            while (available >= tokens) {
+                if (reserved.compareAndSet(available, available - tokens)) {
+                    return true;
+                }
+                available = reserved.get();
+            }
+            return false;
+        }
+
+        private boolean reserveAndTake(long tokens) {
+            // Only one thread per client goes to Redis; the others wait and then use its reserve
+            reserveLock.lock();
+            try {
+                if (takeReserved(tokens)) {
+                    return true;
+                }
+                long wanted = Math.max(tokens, reserveChunk) - reserved.get();
+                long granted = bucket.tryConsumeAsMuchAsPossible(wanted);
+                log.debug("Reserved {} of {} requested tokens", granted, wanted);
+                reserved.addAndGet(granted);
+                boolean taken = takeReserved(tokens);
+                if (clients.get(clientId) != this) {
+                    long unused = reserved.getAndSet(0);
+                    if (unused > 0) {
+                        bucket.addTokens(unused);
+                    }
+                }
+                return taken;
+            } finally {
+                reserveLock.unlock();
+            }
+        }
+
+        private CompletableFuture<Boolean> reserveAndTakeAsync(long tokens) {
+            // Chained after the previous reservation of the client, which may already cover these tokens
+            CompletableFuture<Void> reserve = new CompletableFuture<>();
+            CompletableFuture<Void> previous = lastAsyncReserve.getAndSet(reserve);
+            return previous.thenCompose(ignored -> {
+                if (takeReserved(tokens)) {
+                    return CompletableFuture.completedFuture(true);
+                }
+                long wanted = Math.max(tokens, reserveChunk) - reserved.get();
+                return asyncBucket().tryConsumeAsMuchAsPossible(wanted).thenCompose(granted -> {
+                    log.debug("Reserved {} of {} requested tokens", granted, wanted);
+                    reserved.addAndGet(granted);
+                    boolean taken = takeReserved(tokens);
+                    if (clients.get(clientId) == this) {
+                        return CompletableFuture.completedFuture(taken);
+                    }
+                    long unused = reserved.getAndSet(0);
+                    return unused > 0
+                            ? asyncBucket().addTokens(unused).thenApply(returned -> taken)
+                            : CompletableFuture.completedFuture(taken);
+                });
+            }).whenComplete((taken, error) -> reserve.complete(null));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.incrementservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Handles increments of the reactive web stack without blocking its event-loop threads.
+ * With counters in Redis and neither the {@link IncrementBuffer} nor the {@link IncrementBatcher} enabled, the
+ * increment script is sent through the {@link ReactiveRedisCounterStore} and the request completes when Redis replies.
+ * Otherwise the increment goes through the {@link IncrementService}, whose buffer flushes, batcher waits and journal
+ * syncs may block, on the bounded elastic scheduler.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Slf4j
+public class ReactiveIncrementService {
+
+    private final IncrementService incrementService;
+    private final ReactiveRedisCounterStore reactiveCounterStore;
+    private final TopKeysTracker topKeysTracker;
+
+    /**
+     * Creates the service.
+     *
+     * @param incrementService     the blocking increment service
+     * @param incrementBuffer      the in-process buffer
+     * @param incrementBatcher     the micro-batcher
+     * @param reactiveCounterStore the reactive Redis store, absent if counters are kept in memory
+     * @param topKeysTracker       the tracker counting increments written through the reactive store
+     */
+    public ReactiveIncrementService(IncrementService incrementService, IncrementBuffer incrementBuffer,
+                                    IncrementBatcher incrementBatcher,
+                                    ObjectProvider<ReactiveRedisCounterStore> reactiveCounterStore,
+                                    TopKeysTracker topKeysTracker) {
+        this.incrementService = incrementService;
+        this.topKeysTracker = topKeysTracker;
+        this.reactiveCounterStore = incrementBuffer.isEnabled() || incrementBatcher.isEnabled()
+                ? null
+                : reactiveCounterStore.getIfAvailable();
+    }
+
+    /**
+     * Saves or updates a value in the counter store.
+     *
+     * @param key   the key to save or update
+     * @param value the value to save or increment
+     * @return a {@link Mono} completing once the increment is accepted
+     */
+    public Mono<Void> saveOrUpdateData(String key, long value) {
+        if (reactiveCounterStore != null) {
+            topKeysTracker.record(key);
+            return reactiveCounterStore.increment(key, value).then();
+        }
+        return Mono.<Void>fromRunnable(() -> incrementService.saveOrUpdateDataInRedis(key, value))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
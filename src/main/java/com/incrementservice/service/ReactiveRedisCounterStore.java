@@ -0,0 +1,71 @@
+package com.incrementservice.service;
+
+import com.incrementservice.config.NumericRedisSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisElementReader;
+import org.springframework.data.redis.serializer.RedisElementWriter;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes increments to Redis without blocking, for the reactive web stack.
+ * Runs the same {@code scripts/increment.lua} script on the same counter keys as the {@link RedisCounterStore}, so
+ * both stacks share the flusher and the read path; the script is sent by SHA1 and only sent in full on NOSCRIPT.
+ * Round trips are recorded by the same {@code increment.redis} timer as the blocking increments.
+ */
+@Component
+@ConditionalOnProperty(name = "increment-config.store", havingValue = "redis", matchIfMissing = true)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Slf4j
+public class ReactiveRedisCounterStore {
+
+    private final ReactiveRedisTemplate<String, Long> reactiveRedisTemplate;
+    private final RedisCounterStore redisCounterStore;
+    private final Timer incrementTimer;
+
+    /**
+     * Creates the store.
+     *
+     * @param reactiveRedisTemplate the template used to run the increment script
+     * @param redisCounterStore     the blocking store providing the script keys and arguments
+     * @param meterRegistry         the registry used to publish Redis latencies
+     */
+    public ReactiveRedisCounterStore(ReactiveRedisTemplate<String, Long> reactiveRedisTemplate,
+                                     RedisCounterStore redisCounterStore, MeterRegistry meterRegistry) {
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.redisCounterStore = redisCounterStore;
+        this.incrementTimer = RedisCounterStore.redisTimer("increment", meterRegistry);
+    }
+
+    /**
+     * Writes a value to the live and shadow keys in Redis.
+     *
+     * @param key   the key to save or update
+     * @param delta the value to save or increment
+     * @return the new value of the shadow key, emitted once Redis has replied
+     */
+    public Mono<Long> increment(String key, long delta) {
+        String counterKey = redisCounterStore.counterKeyOf(key);
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return reactiveRedisTemplate.execute(RedisCounterStore.INCREMENT_SCRIPT,
+                            redisCounterStore.incrementScriptKeys(counterKey),
+                            redisCounterStore.incrementScriptArgs(counterKey, delta),
+                            RedisElementWriter.from(RedisSerializer.string()),
+                            RedisElementReader.from(NumericRedisSerializer.INSTANCE))
+                    .next()
+                    .doOnNext(shadowValue -> {
+                        incrementTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        log.debug("Incremented key: {}, shadow value = {}", counterKey, shadowValue);
+                    });
+        });
+    }
+}
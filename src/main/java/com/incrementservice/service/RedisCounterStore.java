@@ -0,0 +1,365 @@
+package com.incrementservice.service;
+
+import com.incrementservice.config.NumericRedisSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps counters in Redis, shared by all instances.
+ * On receiving an increment for a new key, it stores the key with an expiration time of 10 seconds.
+ * If the key is accessed again within this period, only the value is incremented.
+ * Additionally, a shadow key is used to track the value, which the {@link FlushService} drains into the database.
+ * Both keys are updated atomically in a single round trip by the {@code scripts/increment.lua} script, which also
+ * records the key in the dirty key set read by the {@link FlushService}, unless persistence is triggered by key
+ * expiration events.
+ * Increments of hot keys are spread over several counters chosen by the {@link HotKeyDetector}; the Redis names of
+ * counters are given by the {@link CounterKeyspace}.
+ * Every Redis call is timed by an {@code increment.redis} timer tagged with its operation.
+ */
+@Component
+@ConditionalOnProperty(name = "increment-config.store", havingValue = "redis", matchIfMissing = true)
+@Slf4j
+public class RedisCounterStore implements CounterStore {
+
+    /**
+     * Creates the live key with a TTL or increments it, and increments the shadow key.
+     */
+    static final RedisScript<Long> INCREMENT_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/increment.lua"), Long.class);
+
+    static final long KEY_TTL_SECONDS = 10;
+
+    static final String FLUSH_TRIGGER_SCHEDULED = "scheduled";
+
+    private static final String SHADOW_KEY_PREFIX = "shadow:";
+    private static final String PENDING_KEY_PREFIX = "pending:";
+    private static final String DRAIN_OWNER_KEY_PREFIX = "draining:";
+
+    private final RedisTemplate<String, Long> redisTemplate;
+    private final HotKeyDetector hotKeyDetector;
+    private final CounterKeyspace counterKeyspace;
+    private final Timer incrementTimer;
+    private final Timer incrementAllTimer;
+    private final Timer readTimer;
+
+    @Value("${increment-config.flush.trigger:" + FLUSH_TRIGGER_SCHEDULED + "}")
+    private String flushTrigger = FLUSH_TRIGGER_SCHEDULED;
+
+    /**
+     * Creates the store and registers the timers of its Redis calls.
+     *
+     * @param redisTemplate   the template used to run the scripts
+     * @param hotKeyDetector  the detector choosing the counter of an increment
+     * @param counterKeyspace the names of the Redis keys
+     * @param meterRegistry   the registry used to publish Redis timers
+     */
+    public RedisCounterStore(RedisTemplate<String, Long> redisTemplate, HotKeyDetector hotKeyDetector,
+                             CounterKeyspace counterKeyspace, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.hotKeyDetector = hotKeyDetector;
+        this.counterKeyspace = counterKeyspace;
+        this.incrementTimer = redisTimer("increment", meterRegistry);
+        this.incrementAllTimer = redisTimer("increment_all", meterRegistry);
+        this.readTimer = redisTimer("read", meterRegistry);
+    }
+
+    /**
+     * Registers the timer of a Redis operation. The operation is the only tag, so the number of timers stays bounded.
+     *
+     * @param operation     the name of the operation
+     * @param meterRegistry the registry to register the timer with
+     * @return the timer
+     */
+    static Timer redisTimer(String operation, MeterRegistry meterRegistry) {
+        return Timer.builder("increment.redis")
+                .description("Time of a Redis call")
+                .tag("operation", operation)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Writes a value to the live and shadow keys in Redis.
+     *
+     * @param key   the key to save or update
+     * @param delta the value to save or increment
+     */
+    @Override
+    public void increment(String key, long delta) {
+        String counterKey = counterKeyOf(key);
+
+        // Holds the value in Redis and sets 10 seconds for the first time, only increments it afterwards
+        Long shadowValue = incrementTimer.record(() -> redisTemplate.execute(INCREMENT_SCRIPT,
+                RedisSerializer.string(), NumericRedisSerializer.INSTANCE, incrementScriptKeys(counterKey),
+                incrementScriptArgs(counterKey, delta).toArray()));
+        log.debug("Incremented key: {}, shadow value = {}", counterKey, shadowValue);
+    }
+
+    /**
+     * Runs the increment script for every entry in a single pipeline.
+     * Entries rejected with NOSCRIPT are retried once after reloading the script.
+     *
+     * @param deltas the values to add, keyed by key
+     * @return the entries that could not be written
+     */
+    @Override
+    public Map<String, Long> incrementAll(Map<String, Long> deltas) {
+        Map<String, Throwable> errors = pipelineIncrements(deltas);
+        if (errors.values().stream().anyMatch(RedisCounterStore::isNoScriptError)) {
+            loadScripts();
+            Map<String, Long> retry = new LinkedHashMap<>();
+            errors.forEach((key, error) -> {
+                if (isNoScriptError(error)) {
+                    retry.put(key, deltas.get(key));
+                }
+            });
+            errors.keySet().removeAll(retry.keySet());
+            errors.putAll(pipelineIncrements(retry));
+        }
+        Map<String, Long> failed = new LinkedHashMap<>();
+        errors.forEach((key, error) -> {
+            log.error("Failed to increment key in Redis: key = {}, delta = {}", key, deltas.get(key), error);
+            failed.put(key, deltas.get(key));
+        });
+        return failed;
+    }
+
+    /**
+     * Reads the shadow and pending values of all shards of the given keys.
+     * The values are read with a single {@code MGET} per {@link CounterKeyspace} partition, which is atomic, so a value
+     * being drained from the shadow key into the pending key is counted exactly once.
+     *
+     * @param keys the keys to read
+     * @return the unflushed value of every key
+     */
+    @Override
+    public Map<String, Long> unflushedValues(Collection<String> keys) {
+        Map<Integer, List<String>> counterKeysByPartition = new TreeMap<>();
+        Map<String, String> keyByCounterKey = new HashMap<>();
+        for (String key : keys) {
+            for (String name : hotKeyDetector.counterKeys(key)) {
+                String counterKey = counterKeyspace.counterKey(name);
+                keyByCounterKey.put(counterKey, key);
+                counterKeysByPartition.computeIfAbsent(counterKeyspace.partitionOf(counterKey), p -> new ArrayList<>())
+                        .add(counterKey);
+            }
+        }
+        List<List<String>> partitions = new ArrayList<>(counterKeysByPartition.values());
+        List<List<Long>> counters = readTimer.record(() -> readCounters(partitions));
+
+        Map<String, Long> values = new HashMap<>();
+        keys.forEach(key -> values.put(key, 0L));
+        for (int i = 0; i < partitions.size(); i++) {
+            List<String> counterKeys = partitions.get(i);
+            for (int j = 0; j < counterKeys.size(); j++) {
+                long value = counterValue(counters.get(i), j * 2) + counterValue(counters.get(i), j * 2 + 1);
+                values.merge(keyByCounterKey.get(counterKeys.get(j)), value, Long::sum);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Loads the Lua scripts into the Redis script cache so that requests only send their SHA1 digests.
+     * Scripts missing from the cache (e.g. after a Redis restart) are reloaded transparently on NOSCRIPT.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadScripts() {
+        try {
+            redisTemplate.execute((RedisCallback<Void>) connection -> {
+                for (RedisScript<?> script : List.of(INCREMENT_SCRIPT, FlushService.CLAIM_SCRIPT,
+                        CounterDrainer.DRAIN_SCRIPT, CounterDrainer.ACKNOWLEDGE_SCRIPT,
+                        CounterDrainer.RESTORE_SCRIPT)) {
+                    String sha = connection.scriptingCommands()
+                            .scriptLoad(script.getScriptAsString().getBytes(StandardCharsets.UTF_8));
+                    log.info("Loaded script into Redis: sha = {}", sha);
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not preload scripts, they will be loaded on first use", e);
+        }
+    }
+
+    /**
+     * Sends one EVALSHA of the increment script per entry in a single pipeline.
+     *
+     * @param deltas the values to add, keyed by key
+     * @return the error of every entry that failed, keyed by key
+     */
+    private Map<String, Throwable> pipelineIncrements(Map<String, Long> deltas) {
+        List<String> keys = new ArrayList<>(deltas.keySet());
+        long start = System.nanoTime();
+        List<Object> results;
+        try {
+            results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String key : keys) {
+                    String counterKey = counterKeyOf(key);
+                    List<String> scriptKeys = incrementScriptKeys(counterKey);
+                    List<String> keysAndArgs = new ArrayList<>(scriptKeys);
+                    keysAndArgs.addAll(incrementScriptArgs(counterKey, deltas.get(key)));
+                    byte[][] rawKeysAndArgs = keysAndArgs.stream()
+                            .map(arg -> arg.getBytes(StandardCharsets.UTF_8))
+                            .toArray(byte[][]::new);
+                    connection.scriptingCommands().evalSha(INCREMENT_SCRIPT.getSha1(), ReturnType.INTEGER,
+                            scriptKeys.size(), rawKeysAndArgs);
+                }
+                return null;
+            });
+        } catch (RedisPipelineException e) {
+            results = e.getPipelineResult();
+        } finally {
+            incrementAllTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        Map<String, Throwable> errors = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            if (results.get(i) instanceof Throwable error) {
+                errors.put(keys.get(i), error);
+            }
+        }
+        return errors;
+    }
+
+    private static boolean isNoScriptError(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the Redis name of the counter an increment of a key is written to, which is one of its shards if the key
+     * is hot.
+     *
+     * @param key the key to increment
+     * @return the counter key
+     */
+    String counterKeyOf(String key) {
+        return counterKeyspace.counterKey(hotKeyDetector.counterKey(key));
+    }
+
+    List<String> incrementScriptKeys(String key) {
+        return List.of(key, createShadowKey(key), counterKeyspace.dirtyKeysKeyOf(key),
+                counterKeyspace.unflushedDeltaKeyOf(key));
+    }
+
+    List<String> incrementScriptArgs(String key, long value) {
+        long dueAt = FLUSH_TRIGGER_SCHEDULED.equals(flushTrigger)
+                ? System.currentTimeMillis() + KEY_TTL_SECONDS * 1000
+                : 0;
+        return List.of(String.valueOf(value), String.valueOf(KEY_TTL_SECONDS), String.valueOf(dueAt), key);
+    }
+
+    /**
+     * Reads the shadow and pending values of counters with one MGET per partition, as an MGET is only atomic within a
+     * hash slot. The MGETs of several partitions are sent in one pipeline.
+     */
+    @SuppressWarnings("unchecked")
+    private List<List<Long>> readCounters(List<List<String>> partitions) {
+        if (partitions.size() == 1) {
+            return Collections.singletonList(redisTemplate.opsForValue().multiGet(redisKeys(partitions.get(0))));
+        }
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (List<String> counterKeys : partitions) {
+                connection.stringCommands().mGet(redisKeys(counterKeys).stream()
+                        .map(key -> key.getBytes(StandardCharsets.UTF_8))
+                        .toArray(byte[][]::new));
+            }
+            return null;
+        });
+        return results.stream().map(result -> (List<Long>) result).toList();
+    }
+
+    private static List<String> redisKeys(List<String> counterKeys) {
+        List<String> redisKeys = new ArrayList<>(counterKeys.size() * 2);
+        for (String counterKey : counterKeys) {
+            redisKeys.add(createShadowKey(counterKey));
+            redisKeys.add(createPendingKey(counterKey));
+        }
+        return redisKeys;
+    }
+
+    private static long counterValue(List<Long> counters, int index) {
+        if (counters == null) {
+            return 0;
+        }
+        Long value = counters.get(index);
+        return value == null ? 0 : value;
+    }
+
+    /**
+     * Creates a shadow key name.
+     *
+     * @param key the original key
+     * @return the shadow key name
+     */
+    static String createShadowKey(String key) {
+        String shadowKey = SHADOW_KEY_PREFIX + key;
+        log.debug("Created shadow key: {}", shadowKey);
+        return shadowKey;
+    }
+
+    /**
+     * Creates the name of the key holding a drained but not yet persisted value.
+     *
+     * @param key the original key
+     * @return the pending key name
+     */
+    static String createPendingKey(String key) {
+        return PENDING_KEY_PREFIX + key;
+    }
+
+    /**
+     * Creates the name of the key holding the token of the drain that owns the pending value of a counter.
+     *
+     * @param key the original key
+     * @return the drain owner key name
+     */
+    static String createDrainOwnerKey(String key) {
+        return DRAIN_OWNER_KEY_PREFIX + key;
+    }
+
+    /**
+     * Returns the counter whose flush is due when a key expires.
+     * The expired lease of a drain owner key means its drain never settled, so its counter is flushed to take over the
+     * pending value; shadow and pending keys are not counters.
+     *
+     * @param expiredKey the expired key
+     * @return the counter key to flush, or {@code null} if the expired key does not belong to a counter
+     */
+    public static String counterKeyOfExpiredKey(String expiredKey) {
+        if (expiredKey.startsWith(DRAIN_OWNER_KEY_PREFIX)) {
+            return expiredKey.substring(DRAIN_OWNER_KEY_PREFIX.length());
+        }
+        if (expiredKey.startsWith(SHADOW_KEY_PREFIX) || expiredKey.startsWith(PENDING_KEY_PREFIX)) {
+            return null;
+        }
+        return expiredKey;
+    }
+}
@@ -0,0 +1,107 @@
+package com.incrementservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.incrementservice.entity.SumEntity;
+import com.incrementservice.repository.SumRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads the current value of keys: the sum persisted in the database plus the values that are still held by the
+ * {@link CounterStore}, including values drained for a flush that has not been acknowledged yet.
+ * The store is read first and the database afterwards; a flush committing between both reads counts its delta twice
+ * until it is acknowledged, which is at most the duration of that flush.
+ * Values are held in a bounded near-cache for {@code ttl-ms}, so polling clients are served from memory. Keys are
+ * evicted when they are flushed by this instance, which also drops values read while that flush was in progress.
+ */
+@Service
+@Slf4j
+public class SumQueryService {
+
+    private final CounterStore counterStore;
+    private final SumRepository sumRepository;
+    private final Cache<String, Long> cache;
+
+    /**
+     * Creates the service and registers the metrics of its near-cache.
+     *
+     * @param counterStore   the store of unflushed values
+     * @param sumRepository  the repository of persisted sums
+     * @param cacheMaxSize   the maximum number of keys held in the near-cache
+     * @param cacheTtlMillis the time a value is served from the near-cache, in milliseconds
+     * @param meterRegistry  the registry used to publish near-cache metrics
+     */
+    public SumQueryService(CounterStore counterStore,
+                           SumRepository sumRepository,
+                           @Value("${increment-config.read.cache.max-size:10000}") long cacheMaxSize,
+                           @Value("${increment-config.read.cache.ttl-ms:1000}") long cacheTtlMillis,
+                           MeterRegistry meterRegistry) {
+        this.counterStore = counterStore;
+        this.sumRepository = sumRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofMillis(cacheTtlMillis))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "increment.sums");
+    }
+
+    /**
+     * Returns the current value of a key.
+     *
+     * @param key the key to read
+     * @return the value, or 0 if the key has never been incremented
+     */
+    public long getSum(String key) {
+        return getSums(List.of(key)).get(key);
+    }
+
+    /**
+     * Returns the current values of keys, loading all keys missing from the near-cache in one lookup.
+     *
+     * @param keys the keys to read
+     * @return the value of every key in the given order, 0 for keys that have never been incremented
+     */
+    public Map<String, Long> getSums(Collection<String> keys) {
+        Map<String, Long> cached = cache.getAll(keys, this::loadSums);
+        Map<String, Long> sums = new LinkedHashMap<>();
+        for (String key : keys) {
+            sums.put(key, cached.getOrDefault(key, 0L));
+        }
+        return sums;
+    }
+
+    /**
+     * Evicts keys from the near-cache.
+     *
+     * @param keys the keys whose cached values are outdated
+     */
+    public void invalidate(Collection<String> keys) {
+        cache.invalidateAll(keys);
+    }
+
+    private Map<String, Long> loadSums(Set<? extends String> keys) {
+        List<String> keyList = new ArrayList<>(keys);
+        Map<String, Long> sums = new HashMap<>(counterStore.unflushedValues(keyList));
+        for (SumEntity entity : sumRepository.findAllById(keyList)) {
+            if (entity.getSum() != null) {
+                sums.merge(entity.getKey(), entity.getSum(), Long::sum);
+            }
+        }
+        log.debug("Loaded sums of {} keys", keyList.size());
+        return sums;
+    }
+}
@@ -0,0 +1,246 @@
+package com.incrementservice.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tracks the most incremented keys over the last {@code windows} windows of {@code window-ms}, in memory that does not
+ * depend on the number of keys.
+ * <p>
+ * Every window counts increments in a {@link FrequencySketch} and keeps a Space-Saving style summary of its
+ * {@code capacity} top keys: a key that is not in the summary replaces the key with the lowest count once its
+ * estimate exceeds that count. Counts come from the sketch rather than inheriting the count of the replaced key, and
+ * are refreshed lazily, only when the lowest one is about to be replaced. Increments of keys already in the summary or
+ * below its lowest count only update the lock-free sketch; a summary that is being updated by another thread is
+ * skipped rather than waited for, since a key that is really hot is offered again with its next increment.
+ * </p>
+ * <p>
+ * The top keys of several windows are the keys in any of their summaries, ranked by the sum of their estimates in
+ * those windows. Estimates never under-count; a key that is never among the top keys of a single window is missed.
+ * </p>
+ */
+@Component
+public class TopKeysTracker {
+
+    private static final int MAX_REFRESHES = 8;
+
+    private final boolean enabled;
+    private final int capacity;
+    private final int sketchWidth;
+    private final AtomicReferenceArray<Window> windows;
+
+    private volatile long window;
+
+    /**
+     * Creates the tracker.
+     *
+     * @param enabled     whether increments are tracked
+     * @param windows     the number of windows kept
+     * @param capacity    the number of top keys kept per window, and the largest number of keys that can be queried
+     * @param sketchWidth the width of the frequency sketch of every window
+     */
+    public TopKeysTracker(@Value("${increment-config.top-keys.enabled:false}") boolean enabled,
+                          @Value("${increment-config.top-keys.windows:60}") int windows,
+                          @Value("${increment-config.top-keys.capacity:100}") int capacity,
+                          @Value("${increment-config.top-keys.sketch-width:1024}") int sketchWidth) {
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.sketchWidth = sketchWidth;
+        this.windows = new AtomicReferenceArray<>(windows);
+        for (int i = 0; enabled && i < windows; i++) {
+            this.windows.set(i, new Window(capacity, sketchWidth));
+        }
+    }
+
+    /**
+     * Returns whether increments are tracked.
+     *
+     * @return {@code true} if top keys can be queried
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the largest number of keys that can be queried.
+     *
+     * @return the number of top keys kept per window
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of windows kept.
+     *
+     * @return the largest number of windows that can be queried
+     */
+    public int getWindows() {
+        return windows.length();
+    }
+
+    /**
+     * Counts one increment of a key in the current window.
+     *
+     * @param key the incremented key
+     */
+    public void record(String key) {
+        if (enabled) {
+            current().add(key);
+        }
+    }
+
+    /**
+     * Counts one increment of each key in the current window.
+     *
+     * @param keys the incremented keys
+     */
+    public void recordAll(Collection<String> keys) {
+        if (enabled) {
+            Window current = current();
+            keys.forEach(current::add);
+        }
+    }
+
+    /**
+     * Returns the most incremented keys of the most recent windows, including the current one.
+     *
+     * @param k     the number of keys, at most {@link #getCapacity()}
+     * @param count the number of windows, at most {@link #getWindows()}
+     * @return the estimated increments of at most {@code k} keys, in descending order, none if tracking is disabled
+     */
+    public Map<String, Long> top(int k, int count) {
+        if (!enabled) {
+            return Map.of();
+        }
+        long newest = window;
+        List<Window> selected = new ArrayList<>(count);
+        for (long w = newest; w > newest - count && w >= 0; w--) {
+            selected.add(windows.get(index(w)));
+        }
+
+        Set<String> candidates = new HashSet<>();
+        selected.forEach(w -> candidates.addAll(w.members.keySet()));
+        Map<String, Long> estimates = new HashMap<>();
+        for (String key : candidates) {
+            long estimate = 0;
+            for (Window w : selected) {
+                estimate += w.sketch.estimate(key);
+            }
+            estimates.put(key, estimate);
+        }
+
+        Map<String, Long> top = new LinkedHashMap<>();
+        estimates.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(k)
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        return top;
+    }
+
+    /**
+     * Starts a new window, replacing the oldest one.
+     */
+    @Scheduled(fixedDelayString = "${increment-config.top-keys.window-ms:60000}")
+    public void rotateWindow() {
+        if (!enabled) {
+            return;
+        }
+        long next = window + 1;
+        windows.set(index(next), new Window(capacity, sketchWidth));
+        window = next;
+    }
+
+    private Window current() {
+        return windows.get(index(window));
+    }
+
+    private int index(long w) {
+        return (int) (w % windows.length());
+    }
+
+    /**
+     * The sketch and top key summary of one window.
+     */
+    private static final class Window {
+
+        private final int capacity;
+        private final FrequencySketch sketch;
+        private final Map<String, Long> members = new ConcurrentHashMap<>();
+        private final TreeSet<Map.Entry<String, Long>> ranked = new TreeSet<>(
+                Map.Entry.<String, Long>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+        private final ReentrantLock lock = new ReentrantLock();
+
+        // Lowest count in the full summary, a lower bound since counts are only refreshed lazily
+        private volatile long admission;
+
+        private Window(int capacity, int sketchWidth) {
+            this.capacity = capacity;
+            this.sketch = new FrequencySketch(sketchWidth);
+        }
+
+        private void add(String key) {
+            long estimate = sketch.add(key, 1);
+            if (estimate <= admission || members.containsKey(key) || !lock.tryLock()) {
+                return;
+            }
+            try {
+                admit(key, estimate);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Adds a key to the summary, replacing the key with the lowest count if the summary is full and that count is
+         * lower than the estimate of the key. Must be called with the lock held.
+         */
+        private void admit(String key, long estimate) {
+            if (members.containsKey(key)) {
+                return;
+            }
+            if (members.size() < capacity) {
+                put(key, estimate);
+                if (members.size() == capacity) {
+                    admission = ranked.first().getValue();
+                }
+                return;
+            }
+            for (int refresh = 0; refresh < MAX_REFRESHES; refresh++) {
+                Map.Entry<String, Long> lowest = ranked.first();
+                long fresh = sketch.estimate(lowest.getKey());
+                if (fresh > lowest.getValue()) {
+                    ranked.remove(lowest);
+                    put(lowest.getKey(), fresh);
+                    continue;
+                }
+                if (estimate > fresh) {
+                    ranked.remove(lowest);
+                    members.remove(lowest.getKey());
+                    put(key, estimate);
+                }
+                break;
+            }
+            admission = ranked.first().getValue();
+        }
+
+        private void put(String key, long count) {
+            members.put(key, count);
+            ranked.add(Map.entry(key, count));
+        }
+    }
+}
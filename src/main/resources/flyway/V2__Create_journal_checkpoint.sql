@@ -0,0 +1,5 @@
+-- Creates the table holding the last persisted segment of every increment journal
+CREATE TABLE IF NOT EXISTS journal_checkpoint (
+    journal VARCHAR(255) PRIMARY KEY,
+    segment BIGINT NOT NULL
+);
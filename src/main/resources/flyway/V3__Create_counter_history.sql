@@ -0,0 +1,9 @@
+-- Creates the table holding the increments of every key per time bucket, partitioned by day.
+-- Partitions are created and dropped by the application; a key may have several rows per bucket, one per flush.
+CREATE TABLE IF NOT EXISTS counter_history (
+    key VARCHAR(255) NOT NULL,
+    bucket_start TIMESTAMPTZ NOT NULL,
+    delta BIGINT NOT NULL
+) PARTITION BY RANGE (bucket_start);
+
+CREATE INDEX IF NOT EXISTS counter_history_key_bucket_start ON counter_history (key, bucket_start);
@@ -0,0 +1,5 @@
+-- Checkpoints every increment journal by position instead of by segment. A position holds the segment id in its high
+-- 32 bits and the byte offset within the segment in its low 32 bits. A checkpointed segment was persisted as a whole,
+-- so its checkpoint becomes the start of the next segment.
+ALTER TABLE journal_checkpoint RENAME COLUMN segment TO position;
+UPDATE journal_checkpoint SET position = (position + 1) << 32;
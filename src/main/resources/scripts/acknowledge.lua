@@ -0,0 +1,34 @@
+-- Discards drained values once they are persisted, for the counters the drain still owns.
+-- A counter that received increments since the drain is rescheduled: with dirty key tracking it is due again,
+-- otherwise its live key is re-created with a TTL if it expired, so that an expiration event flushes it. Any other
+-- counter is removed from the dirty key set.
+-- The acknowledged values are subtracted from the unflushed delta of the partition.
+-- KEYS[1] dirty key set, KEYS[2] unflushed delta of the partition, KEYS[4i-1] live key, KEYS[4i] shadow key,
+-- KEYS[4i+1] pending key, KEYS[4i+2] drain owner key of the i-th counter
+-- ARGV[1] token of the drain, ARGV[2] time in epoch millis at which rescheduled counters are due (0 to skip dirty key
+-- tracking), ARGV[3] TTL in seconds of re-created live keys, ARGV[i+3] dirty key set member of the i-th counter
+-- Returns the number of acknowledged counters; counters whose ownership lease expired are left to their new owner.
+local dueAt = tonumber(ARGV[2])
+local acknowledged = 0
+for i = 1, (#KEYS - 2) / 4 do
+    local base = 4 * i - 2
+    if redis.call('GET', KEYS[base + 4]) == ARGV[1] then
+        local value = redis.call('GETDEL', KEYS[base + 3])
+        if value then
+            redis.call('DECRBY', KEYS[2], value)
+        end
+        redis.call('DEL', KEYS[base + 4])
+        local incremented = redis.call('EXISTS', KEYS[base + 2]) == 1
+        if dueAt > 0 then
+            if incremented then
+                redis.call('ZADD', KEYS[1], dueAt, ARGV[i + 3])
+            else
+                redis.call('ZREM', KEYS[1], ARGV[i + 3])
+            end
+        elseif incremented then
+            redis.call('SET', KEYS[base + 1], 0, 'EX', ARGV[3], 'NX')
+        end
+        acknowledged = acknowledged + 1
+    end
+end
+return acknowledged
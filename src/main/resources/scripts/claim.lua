@@ -0,0 +1,10 @@
+-- Claims a page of keys that are due for flushing by leasing them to the caller.
+-- Leased keys keep their place in the dirty key set, so they are claimed again if the caller dies before settling them.
+-- KEYS[1] dirty key set
+-- ARGV[1] current time in epoch millis, ARGV[2] page size, ARGV[3] time in epoch millis at which the lease expires
+-- Returns the claimed members, each followed by the time in epoch millis at which it was due.
+local due = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'WITHSCORES', 'LIMIT', 0, ARGV[2])
+for i = 1, #due, 2 do
+    redis.call('ZADD', KEYS[1], 'XX', ARGV[3], due[i])
+end
+return due
@@ -0,0 +1,24 @@
+-- Atomically takes the accumulated values of shadow keys for flushing by one drain.
+-- Each shadow value is moved into its pending key, so increments arriving afterwards start again from zero on the
+-- shadow key, while the taken value stays in Redis until the database write is acknowledged. The drain owns every
+-- counter it takes until it acknowledges or restores it, or until the ownership lease expires; a counter owned by
+-- another drain is skipped, so no pending value is persisted by two drains at once. A value left in a pending key by a
+-- drain whose lease expired is taken over.
+-- KEYS[3i-2] shadow key, KEYS[3i-1] pending key, KEYS[3i] drain owner key of the i-th counter
+-- ARGV[1] token of the drain, ARGV[2] ownership lease in milliseconds
+-- Returns the pending value of every counter, or nil for a counter owned by another drain.
+local values = {}
+for i = 1, #KEYS, 3 do
+    local owner = redis.call('GET', KEYS[i + 2])
+    if owner and owner ~= ARGV[1] then
+        values[#values + 1] = false
+    else
+        redis.call('SET', KEYS[i + 2], ARGV[1], 'PX', ARGV[2])
+        local value = redis.call('GETDEL', KEYS[i])
+        if value then
+            redis.call('INCRBY', KEYS[i + 1], value)
+        end
+        values[#values + 1] = tonumber(redis.call('GET', KEYS[i + 1]) or '0')
+    end
+end
+return values
@@ -0,0 +1,14 @@
+-- Creates the live key with a TTL or increments it, and mirrors the delta to the shadow key, in a single round trip.
+-- KEYS[1] live key, KEYS[2] shadow key, KEYS[3] dirty key set, KEYS[4] unflushed delta of the partition
+-- ARGV[1] delta, ARGV[2] TTL of a newly created live key in seconds,
+-- ARGV[3] time in epoch millis at which the key is due for flushing (0 to skip dirty key tracking),
+-- ARGV[4] member of the key in the dirty key set
+-- Returns the accumulated value of the shadow key.
+redis.call('SET', KEYS[1], 0, 'EX', ARGV[2], 'NX')
+redis.call('INCRBY', KEYS[1], ARGV[1])
+local shadowValue = redis.call('INCRBY', KEYS[2], ARGV[1])
+redis.call('INCRBY', KEYS[4], ARGV[1])
+if tonumber(ARGV[3]) > 0 then
+    redis.call('ZADD', KEYS[3], 'NX', ARGV[3], ARGV[4])
+end
+return shadowValue
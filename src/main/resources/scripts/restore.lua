@@ -0,0 +1,23 @@
+-- Puts drained values back into their shadow keys after a failed database write, for the counters the drain still
+-- owns.
+-- Without dirty key tracking, the live key of every restored counter is re-created with a TTL if it expired, so that
+-- an expiration event flushes the value again; with it, the counter is claimed again once its lease expires.
+-- KEYS[4i-3] live key, KEYS[4i-2] shadow key, KEYS[4i-1] pending key, KEYS[4i] drain owner key of the i-th counter
+-- ARGV[1] token of the drain, ARGV[2] TTL in seconds of re-created live keys (0 to not re-create them)
+-- Returns the number of restored counters.
+local ttl = tonumber(ARGV[2])
+local restored = 0
+for i = 1, #KEYS, 4 do
+    if redis.call('GET', KEYS[i + 3]) == ARGV[1] then
+        local value = redis.call('GETDEL', KEYS[i + 2])
+        if value then
+            redis.call('INCRBY', KEYS[i + 1], value)
+            restored = restored + 1
+        end
+        redis.call('DEL', KEYS[i + 3])
+        if ttl > 0 and redis.call('EXISTS', KEYS[i + 1]) == 1 then
+            redis.call('SET', KEYS[i], 0, 'EX', ttl, 'NX')
+        end
+    end
+end
+return restored
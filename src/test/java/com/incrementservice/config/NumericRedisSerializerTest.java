@@ -0,0 +1,41 @@
+package com.incrementservice.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class NumericRedisSerializerTest {
+
+    private final NumericRedisSerializer serializer = NumericRedisSerializer.INSTANCE;
+
+    @Test
+    void testSerialize_WritesDecimalString() {
+        assertArrayEquals(ascii("-42"), serializer.serialize(-42L));
+        assertNull(serializer.serialize(null));
+    }
+
+    @Test
+    void testDeserialize_RoundTripsFullLongRange() {
+        for (long value : new long[]{0, 1, -1, Integer.MAX_VALUE + 1L, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            assertEquals(value, serializer.deserialize(serializer.serialize(value)));
+        }
+        assertNull(serializer.deserialize(new byte[0]));
+    }
+
+    @Test
+    void testDeserialize_RejectsInvalidInput() {
+        assertThrows(SerializationException.class, () -> serializer.deserialize(ascii("-")));
+        assertThrows(SerializationException.class, () -> serializer.deserialize(ascii("1a")));
+        assertThrows(SerializationException.class, () -> serializer.deserialize(ascii("9223372036854775808")));
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
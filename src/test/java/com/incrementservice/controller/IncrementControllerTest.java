@@ -1,6 +1,8 @@
 package com.incrementservice.controller;
 
 import com.incrementservice.service.IncrementService;
+import com.incrementservice.service.IncrementStreamService;
+import com.incrementservice.service.RateLimitService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -8,10 +10,21 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -20,6 +33,12 @@ class IncrementControllerTest {
     @Mock
     private IncrementService incrementService;
 
+    @Mock
+    private IncrementStreamService streamService;
+
+    @Mock
+    private RateLimitService rateLimitService;
+
     @InjectMocks
     private IncrementController incrementController;
 
@@ -37,6 +56,7 @@ class IncrementControllerTest {
      */
     @BeforeEach
     public void setUp() {
+        ReflectionTestUtils.setField(incrementController, "maxBatchItems", 3);
         mockMvc = MockMvcBuilders.standaloneSetup(incrementController).build();
     }
 
@@ -105,4 +125,148 @@ class IncrementControllerTest {
                         .content("{}"))
                 .andExpect(status().isBadRequest());
     }
+
+    /**
+     * Test case to verify that a batch is accepted and duplicate keys are summed before reaching the service.
+     *
+     * @throws Exception if there is an error during the request execution.
+     */
+    @Test
+    public void testIncrementBatch_CoalescesDuplicateKeys() throws Exception {
+
+        mockMvc.perform(post("/api/increment/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"key\":\"a\",\"value\":1},{\"key\":\"b\",\"value\":2},{\"key\":\"a\",\"value\":3}]"))
+                .andExpect(status().isAccepted());
+
+        verify(incrementService).saveOrUpdateBatchInRedis(Map.of("a", 4L, "b", 2L));
+    }
+
+    /**
+     * Test case to verify that a batch whose values for a key overflow when summed is rejected with a 400 Bad Request
+     * status.
+     *
+     * @throws Exception if there is an error during the request execution.
+     */
+    @Test
+    public void testIncrementBatch_OverflowingDuplicateKeys() throws Exception {
+
+        mockMvc.perform(post("/api/increment/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"key\":\"a\",\"value\":" + Long.MAX_VALUE + "},{\"key\":\"a\",\"value\":1}]"))
+                .andExpect(status().isBadRequest());
+
+        verify(incrementService, never()).saveOrUpdateBatchInRedis(any());
+    }
+
+    /**
+     * Test case to verify that a partially written batch is answered with a 503 Service Unavailable status listing
+     * the keys that were not written.
+     *
+     * @throws Exception if there is an error during the request execution.
+     */
+    @Test
+    public void testIncrementBatch_ListsFailedKeys() throws Exception {
+        when(incrementService.saveOrUpdateBatchInRedis(Map.of("a", 1L, "b", 2L))).thenReturn(Map.of("b", 2L));
+
+        mockMvc.perform(post("/api/increment/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"key\":\"a\",\"value\":1},{\"key\":\"b\",\"value\":2}]"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.failedKeys.length()").value(1))
+                .andExpect(jsonPath("$.failedKeys[0]").value("b"));
+    }
+
+    /**
+     * Test case to verify that a batch containing an invalid item is rejected with a 400 Bad Request status.
+     *
+     * @throws Exception if there is an error during the request execution.
+     */
+    @Test
+    public void testIncrementBatch_InvalidItem() throws Exception {
+
+        mockMvc.perform(post("/api/increment/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"key\":\"a\",\"value\":1},{\"value\":2}]"))
+                .andExpect(status().isBadRequest());
+
+        verify(incrementService, never()).saveOrUpdateBatchInRedis(any());
+    }
+
+    /**
+     * Test case to verify that empty and oversized batches are rejected with a 400 Bad Request status.
+     *
+     * @throws Exception if there is an error during the request execution.
+     */
+    @Test
+    public void testIncrementBatch_InvalidSize() throws Exception {
+
+        mockMvc.perform(post("/api/increment/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/increment/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"key\":\"a\",\"value\":1},{\"key\":\"b\",\"value\":1},"
+                                + "{\"key\":\"c\",\"value\":1},{\"key\":\"d\",\"value\":1}]"))
+                .andExpect(status().isBadRequest());
+
+        verify(incrementService, never()).saveOrUpdateBatchInRedis(any());
+    }
+
+    /**
+     * Test case to verify that a batch is rejected with a 429 Too Many Requests status when items are counted against
+     * the rate limit and the client has not enough tokens left.
+     *
+     * @throws Exception if there is an error during the request execution.
+     */
+    @Test
+    public void testIncrementBatch_RateLimitedPerItem() throws Exception {
+        when(rateLimitService.isCountBatchItems()).thenReturn(true);
+        when(rateLimitService.tryConsume(anyString(), eq(2L))).thenReturn(false);
+
+        mockMvc.perform(post("/api/increment/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"key\":\"a\",\"value\":1},{\"key\":\"b\",\"value\":2}]"))
+                .andExpect(status().isTooManyRequests());
+
+        verify(incrementService, never()).saveOrUpdateBatchInRedis(any());
+    }
+
+    /**
+     * Test case to verify that a stream returns the summary of its records with a 202 Accepted status.
+     *
+     * @throws Exception if there is an error during the request execution.
+     */
+    @Test
+    public void testIncrementStream_ReturnsSummary() throws Exception {
+        when(streamService.ingest(any(), any())).thenReturn(
+                new IncrementStreamService.StreamResult(2, 1, IncrementStreamService.Outcome.COMPLETED));
+
+        mockMvc.perform(post("/api/increment/stream")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"key\":\"a\",\"value\":1}\n{\"value\":2}\n{\"key\":\"b\",\"value\":3}\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.rejected").value(1));
+    }
+
+    /**
+     * Test case to verify that a stream with failed keys returns its summary with a 503 Service Unavailable status.
+     *
+     * @throws Exception if there is an error during the request execution.
+     */
+    @Test
+    public void testIncrementStream_ReturnsFailedKeys() throws Exception {
+        when(streamService.ingest(any(), any())).thenReturn(new IncrementStreamService.StreamResult(1, 0, 1,
+                List.of("b"), IncrementStreamService.Outcome.FAILED));
+
+        mockMvc.perform(post("/api/increment/stream")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"key\":\"a\",\"value\":1}\n{\"key\":\"b\",\"value\":2}\n"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.failedKeys[0]").value("b"));
+    }
 }
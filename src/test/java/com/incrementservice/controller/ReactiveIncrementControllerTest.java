@@ -0,0 +1,67 @@
+package com.incrementservice.controller;
+
+import com.incrementservice.service.ReactiveIncrementService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveIncrementControllerTest {
+
+    @Mock
+    private ReactiveIncrementService incrementService;
+
+    @InjectMocks
+    private ReactiveIncrementController incrementController;
+
+    private WebTestClient webTestClient;
+
+    /**
+     * Binds a {@link WebTestClient} to the controller, without starting a server or the Spring context.
+     */
+    @BeforeEach
+    public void setUp() {
+        webTestClient = WebTestClient.bindToController(incrementController).build();
+    }
+
+    /**
+     * Test case to verify that an increment is accepted once the service completes.
+     */
+    @Test
+    public void testIncrementValue_Success() {
+        when(incrementService.saveOrUpdateData("transactionA", 10L)).thenReturn(Mono.empty());
+
+        webTestClient.post().uri("/api/increment")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"key\":\"transactionA\",\"value\":10}")
+                .exchange()
+                .expectStatus().isAccepted();
+    }
+
+    /**
+     * Test case to verify the behavior when the 'key' is missing in the request body.
+     * This test expects the API to return a 400 Bad Request status.
+     */
+    @Test
+    public void testIncrementValue_MissingKey() {
+        webTestClient.post().uri("/api/increment")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"value\":10}")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verify(incrementService, never()).saveOrUpdateData(anyString(), anyLong());
+    }
+}
@@ -0,0 +1,71 @@
+package com.incrementservice.controller;
+
+import com.incrementservice.service.SumQueryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class SumControllerTest {
+
+    @Mock
+    private SumQueryService sumQueryService;
+
+    @InjectMocks
+    private SumController sumController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(sumController, "maxKeys", 2);
+        mockMvc = MockMvcBuilders.standaloneSetup(sumController).build();
+    }
+
+    @Test
+    public void testGetSum_Success() throws Exception {
+        when(sumQueryService.getSum("a")).thenReturn(42L);
+
+        mockMvc.perform(get("/api/sum/a"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"key\":\"a\",\"sum\":42}"));
+    }
+
+    @Test
+    public void testGetSums_DeduplicatesKeys() throws Exception {
+        Map<String, Long> sums = new LinkedHashMap<>();
+        sums.put("a", 1L);
+        sums.put("b", 0L);
+        when(sumQueryService.getSums(Set.of("a", "b"))).thenReturn(sums);
+
+        mockMvc.perform(get("/api/sums").param("keys", "a,b,a"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"key\":\"a\",\"sum\":1},{\"key\":\"b\",\"sum\":0}]"));
+    }
+
+    @Test
+    public void testGetSums_TooManyKeys() throws Exception {
+        mockMvc.perform(get("/api/sums").param("keys", "a,b,c"))
+                .andExpect(status().isBadRequest());
+
+        verify(sumQueryService, never()).getSums(any());
+    }
+}
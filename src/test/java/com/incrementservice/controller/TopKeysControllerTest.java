@@ -0,0 +1,96 @@
+package com.incrementservice.controller;
+
+import com.incrementservice.service.TopKeysTracker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class TopKeysControllerTest {
+
+    @Mock
+    private TopKeysTracker topKeysTracker;
+
+    @InjectMocks
+    private TopKeysController topKeysController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(topKeysController, "windowMillis", 60000L);
+        lenient().when(topKeysTracker.isEnabled()).thenReturn(true);
+        lenient().when(topKeysTracker.getCapacity()).thenReturn(100);
+        lenient().when(topKeysTracker.getWindows()).thenReturn(60);
+        mockMvc = MockMvcBuilders.standaloneSetup(topKeysController).build();
+    }
+
+    @Test
+    public void testGetTopKeys_RoundsWindowUpToTrackingWindows() throws Exception {
+        Map<String, Long> top = new LinkedHashMap<>();
+        top.put("a", 9L);
+        top.put("b", 4L);
+        when(topKeysTracker.top(2, 4)).thenReturn(top);
+
+        mockMvc.perform(get("/api/top").param("k", "2").param("window", "150s"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"key\":\"a\",\"increments\":9},{\"key\":\"b\",\"increments\":4}]"));
+    }
+
+    @Test
+    public void testGetTopKeys_AddsCurrentWindowWithinHistory() throws Exception {
+        when(topKeysTracker.top(10, 60)).thenReturn(Map.of());
+
+        mockMvc.perform(get("/api/top").param("window", "60m"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testGetTopKeys_DefaultWindowRightAfterRotation() throws Exception {
+        TopKeysTracker tracker = new TopKeysTracker(true, 60, 100, 1024);
+        tracker.record("a");
+        tracker.record("a");
+        tracker.rotateWindow();
+        tracker.record("b");
+        TopKeysController controller = new TopKeysController(tracker);
+        ReflectionTestUtils.setField(controller, "windowMillis", 60000L);
+
+        MockMvcBuilders.standaloneSetup(controller).build().perform(get("/api/top"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"key\":\"a\",\"increments\":2},{\"key\":\"b\",\"increments\":1}]"));
+    }
+
+    @Test
+    public void testGetTopKeys_WindowLongerThanHistory() throws Exception {
+        mockMvc.perform(get("/api/top").param("window", "2h"))
+                .andExpect(status().isBadRequest());
+
+        verify(topKeysTracker, never()).top(anyInt(), anyInt());
+    }
+
+    @Test
+    public void testGetTopKeys_InvalidWindow() throws Exception {
+        mockMvc.perform(get("/api/top").param("window", "soon"))
+                .andExpect(status().isBadRequest());
+
+        verify(topKeysTracker, never()).top(anyInt(), anyInt());
+    }
+}
@@ -0,0 +1,52 @@
+package com.incrementservice.filter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestLoggerTest {
+
+    @Test
+    void testIsLoggedAlwaysWithSampleRateOne() {
+        RequestLogger requestLogger = new RequestLogger(1);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(requestLogger.isLogged(202));
+        }
+    }
+
+    @Test
+    void testIsLoggedOnlyFailedWithSampleRateZero() {
+        RequestLogger requestLogger = new RequestLogger(0);
+
+        for (int i = 0; i < 100; i++) {
+            assertFalse(requestLogger.isLogged(202));
+        }
+        assertTrue(requestLogger.isLogged(401));
+        assertTrue(requestLogger.isLogged(500));
+    }
+
+    @Test
+    void testIsLoggedRateLimitedRequestsRegardlessOfSampling() {
+        RequestLogger requestLogger = new RequestLogger(1_000_000);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(requestLogger.isLogged(429));
+        }
+    }
+
+    @Test
+    void testIsLoggedSamplesSuccessfulRequests() {
+        RequestLogger requestLogger = new RequestLogger(10);
+
+        int logged = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (requestLogger.isLogged(200)) {
+                logged++;
+            }
+        }
+
+        assertTrue(logged > 500 && logged < 1500, "logged = " + logged);
+    }
+}
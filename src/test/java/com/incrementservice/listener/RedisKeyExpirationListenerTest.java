@@ -0,0 +1,46 @@
+package com.incrementservice.listener;
+
+import com.incrementservice.service.FlushService;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class RedisKeyExpirationListenerTest {
+
+    private final FlushService flushService = mock(FlushService.class);
+
+    private final RedisKeyExpirationListener listener = new RedisKeyExpirationListener(flushService);
+
+    @Test
+    void testOnMessage_FlushesExpiredCounter() {
+        listener.onMessage(expired("testKey"), null);
+
+        verify(flushService).processExpiredKey("testKey");
+    }
+
+    @Test
+    void testOnMessage_FlushesCounterOfExpiredDrainOwner() {
+        listener.onMessage(expired("draining:testKey"), null);
+
+        verify(flushService).processExpiredKey("testKey");
+    }
+
+    @Test
+    void testOnMessage_IgnoresExpiredShadowAndPendingKeys() {
+        listener.onMessage(expired("shadow:testKey"), null);
+        listener.onMessage(expired("pending:testKey"), null);
+
+        verify(flushService, never()).processExpiredKey(anyString());
+    }
+
+    private static DefaultMessage expired(String key) {
+        return new DefaultMessage("__keyevent@0__:expired".getBytes(StandardCharsets.UTF_8),
+                key.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,203 @@
+package com.incrementservice.listener;
+
+import com.incrementservice.service.IncrementService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TcpIncrementListenerTest {
+
+    private final IncrementService incrementService = mock(IncrementService.class);
+
+    private TcpIncrementListener listener;
+
+    @AfterEach
+    void tearDown() {
+        listener.stop();
+    }
+
+    @Test
+    void testFrame_WritesSummedRecords() throws IOException {
+        start(4);
+        try (Socket socket = new Socket("localhost", listener.getPort())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            authenticate(out, in, "secret");
+
+            sendFrame(out, Map.entry("a", 1L), Map.entry("b", 2L), Map.entry("a", 3L));
+
+            assertEquals(TcpIncrementListener.STATUS_OK, in.readByte());
+            assertEquals(3, in.readInt());
+        }
+        verify(incrementService).saveOrUpdateBatchInRedis(Map.of("a", 4L, "b", 2L));
+    }
+
+    @Test
+    void testFrame_ReportsFailureOfSomeKeys() throws IOException {
+        when(incrementService.saveOrUpdateBatchInRedis(Map.of("a", 1L, "b", 2L))).thenReturn(Map.of("b", 2L));
+        start(4);
+        try (Socket socket = new Socket("localhost", listener.getPort())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            authenticate(out, in, "secret");
+
+            sendFrame(out, Map.entry("a", 1L), Map.entry("b", 2L));
+
+            assertEquals(TcpIncrementListener.STATUS_FAILED, in.readByte());
+            assertEquals(2, in.readInt());
+        }
+    }
+
+    @Test
+    void testFrame_RejectsOverflowingSumOfKey() throws IOException {
+        start(4);
+        try (Socket socket = new Socket("localhost", listener.getPort())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            authenticate(out, in, "secret");
+
+            sendFrame(out, Map.entry("a", Long.MAX_VALUE), Map.entry("a", 1L));
+
+            assertEquals(TcpIncrementListener.STATUS_INVALID, in.readByte());
+            assertEquals(2, in.readInt());
+        }
+        verify(incrementService, never()).saveOrUpdateBatchInRedis(any());
+    }
+
+    @Test
+    void testAuthentication_RejectsInvalidToken() throws IOException {
+        start(4);
+        try (Socket socket = new Socket("localhost", listener.getPort())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            sendToken(out, "wrong");
+
+            assertEquals(TcpIncrementListener.STATUS_UNAUTHORIZED, in.readByte());
+            assertEquals(0, in.readInt());
+            assertEquals(-1, in.read());
+        }
+        verify(incrementService, never()).saveOrUpdateBatchInRedis(any());
+    }
+
+    @Test
+    void testAuthentication_RejectsTokenFrameLongerThanToken() throws IOException {
+        start(4);
+        try (Socket socket = new Socket("localhost", listener.getPort())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            out.writeInt(1024);
+            out.flush();
+
+            assertEquals(TcpIncrementListener.STATUS_UNAUTHORIZED, in.readByte());
+            assertEquals(0, in.readInt());
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    void testAuthentication_ClosesConnectionNotAuthenticatingInTime() throws IOException {
+        start(4);
+        try (Socket socket = new Socket("localhost", listener.getPort())) {
+            socket.setSoTimeout(5000);
+
+            assertEquals(-1, socket.getInputStream().read());
+        }
+    }
+
+    @Test
+    void testFrame_ReadsFramesPipelinedAfterToken() throws IOException {
+        start(4);
+        try (Socket socket = new Socket("localhost", listener.getPort())) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            sendToken(out, "secret");
+            sendFrame(out, Map.entry("a", 1L));
+
+            assertEquals(TcpIncrementListener.STATUS_OK, in.readByte());
+            assertEquals(0, in.readInt());
+            assertEquals(TcpIncrementListener.STATUS_OK, in.readByte());
+            assertEquals(1, in.readInt());
+        }
+        verify(incrementService).saveOrUpdateBatchInRedis(Map.of("a", 1L));
+    }
+
+    @Test
+    void testFrame_ReportsBusyWhenPipelineIsSaturated() throws Exception {
+        start(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return Map.of();
+        }).when(incrementService).saveOrUpdateBatchInRedis(any());
+
+        try (Socket first = new Socket("localhost", listener.getPort());
+             Socket second = new Socket("localhost", listener.getPort())) {
+            DataOutputStream firstOut = new DataOutputStream(first.getOutputStream());
+            DataInputStream firstIn = new DataInputStream(first.getInputStream());
+            DataOutputStream secondOut = new DataOutputStream(second.getOutputStream());
+            DataInputStream secondIn = new DataInputStream(second.getInputStream());
+            authenticate(firstOut, firstIn, "secret");
+            authenticate(secondOut, secondIn, "secret");
+
+            sendFrame(firstOut, Map.entry("a", 1L));
+            verify(incrementService, timeout(5000)).saveOrUpdateBatchInRedis(Map.of("a", 1L));
+            sendFrame(secondOut, Map.entry("b", 1L));
+
+            assertEquals(TcpIncrementListener.STATUS_BUSY, secondIn.readByte());
+            assertEquals(1, secondIn.readInt());
+            release.countDown();
+            assertEquals(TcpIncrementListener.STATUS_OK, firstIn.readByte());
+            assertEquals(1, firstIn.readInt());
+        }
+    }
+
+    private void start(int maxInFlight) throws IOException {
+        listener = new TcpIncrementListener(incrementService, 0, "secret", 1024, 64, 8, maxInFlight, 500);
+        listener.start();
+    }
+
+    private static void authenticate(DataOutputStream out, DataInputStream in, String token) throws IOException {
+        sendToken(out, token);
+        assertEquals(TcpIncrementListener.STATUS_OK, in.readByte());
+        assertEquals(0, in.readInt());
+    }
+
+    private static void sendToken(DataOutputStream out, String token) throws IOException {
+        byte[] bytes = token.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        out.flush();
+    }
+
+    @SafeVarargs
+    private static void sendFrame(DataOutputStream out, Map.Entry<String, Long>... records) throws IOException {
+        int length = 0;
+        for (Map.Entry<String, Long> record : records) {
+            length += Short.BYTES + record.getKey().getBytes(StandardCharsets.UTF_8).length + Long.BYTES;
+        }
+        out.writeInt(length);
+        for (Map.Entry<String, Long> record : records) {
+            byte[] key = record.getKey().getBytes(StandardCharsets.UTF_8);
+            out.writeShort(key.length);
+            out.write(key);
+            out.writeLong(record.getValue());
+        }
+        out.flush();
+    }
+}
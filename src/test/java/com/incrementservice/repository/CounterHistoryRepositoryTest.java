@@ -0,0 +1,47 @@
+package com.incrementservice.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CounterHistoryRepositoryTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final CounterHistoryRepository repository = new CounterHistoryRepository(jdbcTemplate);
+
+    @Test
+    void testWriteCsv_QuotesKey() throws Exception {
+        StringWriter writer = new StringWriter();
+
+        CounterHistoryRepository.writeCsv(writer,
+                new CounterHistoryRepository.Row("a \"b\",c", Instant.parse("2026-10-18T08:51:00Z"), -3));
+
+        assertEquals("\"a \"\"b\"\",c\",2026-10-18T08:51:00Z,-3\n", writer.toString());
+    }
+
+    @Test
+    void testCreatePartition_CoversUtcDay() {
+        repository.createPartition(LocalDate.of(2026, 10, 18));
+
+        verify(jdbcTemplate).execute("CREATE TABLE IF NOT EXISTS counter_history_20261018 PARTITION OF counter_history "
+                + "FOR VALUES FROM ('2026-10-18 00:00:00+00') TO ('2026-10-19 00:00:00+00')");
+    }
+
+    @Test
+    void testFindPartitionDays_IgnoresOtherPartitions() {
+        when(jdbcTemplate.queryForList(CounterHistoryRepository.PARTITIONS_SQL, String.class, "counter_history"))
+                .thenReturn(List.of("counter_history_20261018", "counter_history_default"));
+
+        assertEquals(List.of(LocalDate.of(2026, 10, 18)), repository.findPartitionDays());
+    }
+}
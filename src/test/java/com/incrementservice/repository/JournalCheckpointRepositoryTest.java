@@ -0,0 +1,33 @@
+package com.incrementservice.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JournalCheckpointRepositoryTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final JournalCheckpointRepository repository = new JournalCheckpointRepository(jdbcTemplate);
+
+    @Test
+    void testFindPosition_ReturnsMinusOneWithoutCheckpoint() {
+        when(jdbcTemplate.queryForList(JournalCheckpointRepository.SELECT_SQL, Long.class, "increment"))
+                .thenReturn(List.of());
+
+        assertEquals(-1, repository.findPosition("increment"));
+    }
+
+    @Test
+    void testSave_UpsertsCheckpoint() {
+        repository.save("increment", 7);
+
+        verify(jdbcTemplate).update(JournalCheckpointRepository.UPSERT_SQL, "increment", 7L);
+    }
+}
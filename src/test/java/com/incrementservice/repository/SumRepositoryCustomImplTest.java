@@ -0,0 +1,90 @@
+package com.incrementservice.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class SumRepositoryCustomImplTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final SumRepositoryCustomImpl repository = new SumRepositoryCustomImpl(jdbcTemplate, meterRegistry);
+
+    @Captor
+    private ArgumentCaptor<Collection<Map.Entry<String, Long>>> rows;
+
+    @Captor
+    private ArgumentCaptor<ParameterizedPreparedStatementSetter<Map.Entry<String, Long>>> setter;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testUpsertAll_SendsOneBatchInKeyOrder() {
+        Map<String, Long> deltas = new HashMap<>();
+        deltas.put("c", 3L);
+        deltas.put("a", 1L);
+        deltas.put("b", 2L);
+
+        repository.upsertAll(deltas);
+
+        verify(jdbcTemplate).batchUpdate(eq(SumRepositoryCustomImpl.UPSERT_SQL), rows.capture(), eq(3),
+                setter.capture());
+        List<String> keys = new ArrayList<>();
+        rows.getValue().forEach(row -> keys.add(row.getKey()));
+        assertEquals(List.of("a", "b", "c"), keys);
+        assertEquals(3, meterRegistry.get("increment.db.batch.size").summary().totalAmount());
+    }
+
+    @Test
+    void testUpsertAll_BindsKeyThenSum() throws SQLException {
+        repository.upsertAll(Map.of("a", 1L, "b", Long.MAX_VALUE));
+
+        verify(jdbcTemplate).batchUpdate(eq(SumRepositoryCustomImpl.UPSERT_SQL), rows.capture(), eq(2),
+                setter.capture());
+        PreparedStatement statement = mock(PreparedStatement.class);
+        for (Map.Entry<String, Long> row : rows.getValue()) {
+            setter.getValue().setValues(statement, row);
+        }
+        InOrder inOrder = inOrder(statement);
+        inOrder.verify(statement).setString(1, "a");
+        inOrder.verify(statement).setLong(2, 1L);
+        inOrder.verify(statement).setString(1, "b");
+        inOrder.verify(statement).setLong(2, Long.MAX_VALUE);
+        inOrder.verifyNoMoreInteractions();
+    }
+
+    @Test
+    void testUpsertAll_SkipsEmptyBatch() {
+        repository.upsertAll(Map.of());
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), rows.capture(), anyInt(), setter.capture());
+    }
+}
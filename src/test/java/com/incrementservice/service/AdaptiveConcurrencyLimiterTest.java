@@ -0,0 +1,136 @@
+package com.incrementservice.service;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AtomicLong unflushedKeys = new AtomicLong();
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit) {
+        meterRegistry.gauge(AdaptiveConcurrencyLimiter.BACKLOG_METER, unflushedKeys);
+        return new AdaptiveConcurrencyLimiter(initialLimit, 2, 20, 5, 0.5, 2.0, 2, 1000, 3, meterRegistry);
+    }
+
+    private void recordWrites(long latencyMillis, int count) {
+        Timer timer = RedisCounterStore.redisTimer("increment", meterRegistry);
+        for (int i = 0; i < count; i++) {
+            timer.record(latencyMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Test
+    void testTryAcquire_ShedsRequestsBeyondLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        limiter.release();
+
+        assertTrue(limiter.tryAcquire());
+        assertEquals(2, meterRegistry.get("increment.concurrency.in.flight").gauge().value());
+        assertEquals(1, meterRegistry.get("increment.concurrency.rejected").counter().count());
+        assertEquals(3, limiter.getRetryAfterSeconds());
+    }
+
+    @Test
+    void testAdjust_RaisesReachedLimitWhileHealthy() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+        recordWrites(1, 10);
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire();
+        }
+
+        limiter.adjust();
+
+        assertEquals(15, limiter.getLimit());
+        assertEquals(15, meterRegistry.get("increment.concurrency.limit").gauge().value());
+
+        // Not reached during the last interval
+        limiter.adjust();
+
+        assertEquals(15, limiter.getLimit());
+    }
+
+    @Test
+    void testAdjust_LowersLimitWhenRedisLatencyRises() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+        recordWrites(3, 10);
+        limiter.adjust();
+
+        recordWrites(30, 10);
+        limiter.adjust();
+
+        assertEquals(5, limiter.getLimit());
+
+        // Latency back to its baseline, the limit grows again once reached
+        recordWrites(3, 10);
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire();
+        }
+        limiter.adjust();
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void testAdjust_KeepsBaselineDuringSustainedSlowdown() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20);
+        recordWrites(3, 10);
+        limiter.adjust();
+
+        // The limit keeps being reached, so it would grow again as soon as Redis were no longer considered slow
+        for (int i = 0; i < 30; i++) {
+            recordWrites(30, 10);
+            for (int j = 0; j < 20; j++) {
+                limiter.tryAcquire();
+            }
+            limiter.adjust();
+        }
+
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void testAdjust_IgnoresLatencyBelowMinimum() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+        recordWrites(0, 10);
+        limiter.adjust();
+
+        recordWrites(1, 10);
+        limiter.adjust();
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void testAdjust_LowersLimitWhileBacklogIsHigh() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+        unflushedKeys.set(5000);
+
+        limiter.adjust();
+        limiter.adjust();
+        limiter.adjust();
+
+        assertEquals(2, limiter.getLimit());
+
+        unflushedKeys.set(0);
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+        limiter.adjust();
+
+        assertEquals(7, limiter.getLimit());
+    }
+}
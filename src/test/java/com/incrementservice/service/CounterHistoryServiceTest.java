@@ -0,0 +1,117 @@
+package com.incrementservice.service;
+
+import com.incrementservice.repository.CounterHistoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class CounterHistoryServiceTest {
+
+    private static final long FLUSHED_AT = Instant.parse("2026-10-18T08:51:30Z").toEpochMilli();
+
+    private final CounterHistoryRepository historyRepository = mock(CounterHistoryRepository.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Captor
+    private ArgumentCaptor<Collection<CounterHistoryRepository.Row>> rows;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private CounterHistoryService service(boolean enabled, int maxRows) {
+        return new CounterHistoryService(historyRepository, enabled, 60, maxRows, 30, 2, meterRegistry);
+    }
+
+    private Set<CounterHistoryRepository.Row> copiedRows(int times) {
+        verify(historyRepository, times(times)).copyAll(rows.capture());
+        return new HashSet<>(rows.getValue());
+    }
+
+    @Test
+    void testWrite_CopiesDeltasSummedPerBucket() {
+        CounterHistoryService service = service(true, 100);
+        when(historyRepository.copyAll(anyCollection())).thenReturn(3L);
+
+        service.record(Map.of("a", 1L), FLUSHED_AT);
+        service.record(Map.of("a", 2L, "b", 5L), FLUSHED_AT + 20_000);
+        service.record(Map.of("a", 4L), FLUSHED_AT + 40_000);
+        service.write();
+
+        verify(historyRepository).createPartition(LocalDate.of(2026, 10, 18));
+        assertEquals(Set.of(
+                new CounterHistoryRepository.Row("a", Instant.parse("2026-10-18T08:51:00Z"), 3),
+                new CounterHistoryRepository.Row("b", Instant.parse("2026-10-18T08:51:00Z"), 5),
+                new CounterHistoryRepository.Row("a", Instant.parse("2026-10-18T08:52:00Z"), 4)), copiedRows(1));
+        assertEquals(3, meterRegistry.get("increment.history.written").counter().count());
+        assertEquals(0, meterRegistry.get("increment.history.pending").gauge().value());
+    }
+
+    @Test
+    void testWrite_RetriesFailedRowsAndDropsRowsBeyondBound() {
+        CounterHistoryService service = service(true, 2);
+        doThrow(new IllegalStateException("database down")).when(historyRepository).copyAll(anyCollection());
+
+        service.record(Map.of("a", 1L, "b", 2L), FLUSHED_AT);
+        service.write();
+        service.record(Map.of("a", 1L, "c", 3L), FLUSHED_AT);
+
+        assertEquals(2, meterRegistry.get("increment.history.pending").gauge().value());
+        assertEquals(1, meterRegistry.get("increment.history.dropped").counter().count());
+
+        service.write();
+
+        assertEquals(Set.of(
+                new CounterHistoryRepository.Row("a", Instant.parse("2026-10-18T08:51:00Z"), 2),
+                new CounterHistoryRepository.Row("b", Instant.parse("2026-10-18T08:51:00Z"), 2)), copiedRows(2));
+    }
+
+    @Test
+    void testMaintainPartitions_CreatesUpcomingAndDropsExpiredPartitions() {
+        CounterHistoryService service = service(true, 100);
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        when(historyRepository.findPartitionDays()).thenReturn(List.of(today.minusDays(31), today.minusDays(30)));
+
+        service.maintainPartitions();
+
+        verify(historyRepository).createPartition(today);
+        verify(historyRepository).createPartition(today.plusDays(1));
+        verify(historyRepository).createPartition(today.plusDays(2));
+        verify(historyRepository).dropPartition(today.minusDays(31));
+        verify(historyRepository, times(0)).dropPartition(today.minusDays(30));
+    }
+
+    @Test
+    void testRecord_IgnoredWhenDisabled() {
+        CounterHistoryService service = service(false, 100);
+
+        service.record(Map.of("a", 1L), FLUSHED_AT);
+        service.write();
+        service.maintainPartitions();
+
+        verifyNoInteractions(historyRepository);
+    }
+}
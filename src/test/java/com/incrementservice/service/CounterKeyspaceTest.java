@@ -0,0 +1,40 @@
+package com.incrementservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CounterKeyspaceTest {
+
+    private final HotKeyDetector hotKeyDetector =
+            new HotKeyDetector(true, 8, 16, 10000, 10, 1000, 4096, new SimpleMeterRegistry());
+
+    @Test
+    void testCounterKey_StandaloneUsesNamesAsIs() {
+        CounterKeyspace keyspace = new CounterKeyspace("standalone", 128, hotKeyDetector);
+
+        assertEquals(1, keyspace.partitions());
+        assertEquals("a#0", keyspace.counterKey("a#0"));
+        assertEquals("a", keyspace.baseKey("a#0"));
+        assertEquals(0, keyspace.partitionOf("a"));
+        assertEquals("increment:dirty", keyspace.dirtyKeysKeyOf("a"));
+        assertEquals("increment:unflushed", keyspace.unflushedDeltaKeyOf("a"));
+    }
+
+    @Test
+    void testCounterKey_ClusterTagsNamesWithTheirPartition() {
+        CounterKeyspace keyspace = new CounterKeyspace("cluster", 16, hotKeyDetector);
+
+        for (String name : new String[]{"a", "a#3", "{b}", "c}#", ""}) {
+            String counterKey = keyspace.counterKey(name);
+            int partition = keyspace.partitionOf(counterKey);
+
+            assertEquals("{" + partition + "}" + name, counterKey);
+            assertEquals(Math.floorMod(name.hashCode(), 16), partition);
+            assertEquals(hotKeyDetector.baseKey(name), keyspace.baseKey(counterKey));
+            assertEquals("increment:dirty:{" + partition + "}", keyspace.dirtyKeysKeyOf(counterKey));
+            assertEquals("increment:unflushed:{" + partition + "}", keyspace.unflushedDeltaKeyOf(counterKey));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.incrementservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FlushBacklogMonitorTest {
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, Long> redisTemplate = mock(RedisTemplate.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final HotKeyDetector hotKeyDetector =
+            new HotKeyDetector(false, 8, 16, 10000, 10, 1000, 4096, meterRegistry);
+
+    @Test
+    void testSample_SumsBacklogOfAllPartitions() {
+        FlushBacklogMonitor monitor = new FlushBacklogMonitor(redisTemplate,
+                new CounterKeyspace("cluster", 2, hotKeyDetector), meterRegistry);
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenReturn(Arrays.asList(2L, 5L, 1L, null));
+
+        monitor.sample();
+
+        assertEquals(3, meterRegistry.get("increment.unflushed.keys").gauge().value());
+        assertEquals(5, meterRegistry.get("increment.unflushed.delta").gauge().value());
+    }
+}
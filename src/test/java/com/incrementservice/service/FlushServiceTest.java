@@ -0,0 +1,215 @@
+package com.incrementservice.service;
+
+import com.incrementservice.repository.SumRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class FlushServiceTest {
+
+    @Mock
+    private RedisTemplate<String, Long> redisTemplate;
+
+    @Mock
+    private CounterDrainer counterDrainer;
+
+    @Mock
+    private SumRepository sumRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private SumQueryService sumQueryService;
+
+    @Mock
+    private CounterHistoryService counterHistoryService;
+
+    @Spy
+    private CounterKeyspace counterKeyspace = new CounterKeyspace("standalone", 128,
+            new HotKeyDetector(true, 8, 16, 10000, 10, 1000, 4096, new SimpleMeterRegistry()));
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private FlushService flushService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void testFlushPage_PersistsAndSettlesClaimedKeys() {
+        when(redisTemplate.execute(eq(FlushService.CLAIM_SCRIPT),
+                ArgumentMatchers.<RedisSerializer<String>>any(), ArgumentMatchers.<RedisSerializer<List>>any(),
+                anyList(), any(), any(), any()))
+                .thenReturn(List.of("a", "1000", "b", "1000", "c", "1000"));
+        CounterDrainer.Drain drain = drain(Map.of("a", 5L, "b", 0L, "c", 7L));
+        when(counterDrainer.drain(List.of("a", "b", "c"))).thenReturn(drain);
+
+        assertEquals(3, flushService.flushPage(0));
+
+        verify(sumRepository).upsertAll(Map.of("a", 5L, "c", 7L));
+        verify(counterDrainer).acknowledge(eq(drain), anyLong());
+        verify(sumQueryService).invalidate(List.of("a", "b", "c"));
+        verify(counterDrainer, never()).restore(any(), anyBoolean());
+        assertEquals(2, meterRegistry.get("increment.flush.lag").timer().count());
+        verify(counterHistoryService).record(eq(Map.of("a", 5L, "c", 7L)), anyLong());
+    }
+
+    @Test
+    void testFlushPage_SumsShardsOfHotKey() {
+        when(redisTemplate.execute(eq(FlushService.CLAIM_SCRIPT),
+                ArgumentMatchers.<RedisSerializer<String>>any(), ArgumentMatchers.<RedisSerializer<List>>any(),
+                anyList(), any(), any(), any()))
+                .thenReturn(List.of("a", "1000", "a#0", "1000", "a#1", "1000", "b#0#", "1000"));
+        CounterDrainer.Drain drain = drain(Map.of("a", 1L, "a#0", 2L, "a#1", 3L, "b#0#", 4L));
+        when(counterDrainer.drain(List.of("a", "a#0", "a#1", "b#0#"))).thenReturn(drain);
+
+        assertEquals(4, flushService.flushPage(0));
+
+        verify(sumRepository).upsertAll(Map.of("a", 6L, "b#0", 4L));
+        verify(counterDrainer).acknowledge(eq(drain), anyLong());
+        verify(sumQueryService).invalidate(List.of("a", "b#0"));
+    }
+
+    @Test
+    void testFlushPage_LeavesKeysOwnedByAnotherDrain() {
+        when(redisTemplate.execute(eq(FlushService.CLAIM_SCRIPT),
+                ArgumentMatchers.<RedisSerializer<String>>any(), ArgumentMatchers.<RedisSerializer<List>>any(),
+                anyList(), any(), any(), any()))
+                .thenReturn(List.of("a", "1000", "b", "1000"));
+        CounterDrainer.Drain drain = drain(Map.of("b", 2L));
+        when(counterDrainer.drain(List.of("a", "b"))).thenReturn(drain);
+
+        assertEquals(2, flushService.flushPage(0));
+
+        verify(sumRepository).upsertAll(Map.of("b", 2L));
+        verify(counterDrainer).acknowledge(eq(drain), anyLong());
+        verify(sumQueryService).invalidate(List.of("b"));
+    }
+
+    @Test
+    void testFlushPage_NothingDue() {
+        when(redisTemplate.execute(eq(FlushService.CLAIM_SCRIPT),
+                ArgumentMatchers.<RedisSerializer<String>>any(), ArgumentMatchers.<RedisSerializer<List>>any(),
+                anyList(), any(), any(), any()))
+                .thenReturn(List.of());
+
+        assertEquals(0, flushService.flushPage(0));
+
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+        verifyNoInteractions(counterDrainer);
+    }
+
+    @Test
+    void testFlushPage_RestoresWhenDatabaseWriteFails() {
+        when(redisTemplate.execute(eq(FlushService.CLAIM_SCRIPT),
+                ArgumentMatchers.<RedisSerializer<String>>any(), ArgumentMatchers.<RedisSerializer<List>>any(),
+                anyList(), any(), any(), any()))
+                .thenReturn(List.of("a", "1000"));
+        CounterDrainer.Drain drain = drain(Map.of("a", 5L));
+        when(counterDrainer.drain(List.of("a"))).thenReturn(drain);
+        doThrow(new IllegalStateException("database down")).when(sumRepository).upsertAll(Map.of("a", 5L));
+
+        assertThrows(IllegalStateException.class, () -> flushService.flushPage(0));
+
+        verify(counterDrainer).restore(drain, false);
+        verify(counterDrainer, never()).acknowledge(any(), anyLong());
+    }
+
+    @Test
+    void testProcessExpiredKey_PersistsDrainedValue() {
+        CounterDrainer.Drain drain = drain(Map.of("testKey", 10L));
+        when(counterDrainer.drain(List.of("testKey"))).thenReturn(drain);
+
+        flushService.processExpiredKey("testKey");
+
+        verify(sumRepository).upsertAll(Map.of("testKey", 10L));
+        verify(counterDrainer).acknowledge(drain, 0);
+        verify(counterDrainer, never()).restore(any(), anyBoolean());
+    }
+
+    @Test
+    void testProcessExpiredKey_NothingToDrain() {
+        CounterDrainer.Drain drain = drain(Map.of("testKey", 0L));
+        when(counterDrainer.drain(List.of("testKey"))).thenReturn(drain);
+
+        flushService.processExpiredKey("testKey");
+
+        verifyNoInteractions(sumRepository);
+        verify(counterDrainer).acknowledge(drain, 0);
+    }
+
+    @Test
+    void testProcessExpiredKey_SkipsKeyDrainedByAnotherInstance() {
+        when(counterDrainer.drain(List.of("testKey"))).thenReturn(drain(Map.of()));
+
+        flushService.processExpiredKey("testKey");
+
+        verifyNoInteractions(sumRepository);
+        verify(counterDrainer, never()).acknowledge(any(), anyLong());
+        verify(counterDrainer, never()).restore(any(), anyBoolean());
+    }
+
+    @Test
+    void testProcessExpiredKey_RestoresOnDatabaseFailure() {
+        CounterDrainer.Drain drain = drain(Map.of("testKey", 10L));
+        when(counterDrainer.drain(List.of("testKey"))).thenReturn(drain);
+        doThrow(new IllegalStateException("database down")).when(sumRepository).upsertAll(any());
+
+        assertThrows(IllegalStateException.class, () -> flushService.processExpiredKey("testKey"));
+
+        verify(counterDrainer).restore(drain, true);
+        verify(counterDrainer, never()).acknowledge(any(), anyLong());
+    }
+
+    private static CounterDrainer.Drain drain(Map<String, Long> values) {
+        return new CounterDrainer.Drain("token", values);
+    }
+
+    @Test
+    void testUpdateOrInsertRecord_Upserts() {
+        flushService.updateOrInsertRecord("testKey", 10);
+
+        verify(sumRepository).upsertAll(Map.of("testKey", 10L));
+        verify(sumRepository, never()).findByKey(anyString());
+        verify(sumRepository, never()).save(any());
+    }
+}
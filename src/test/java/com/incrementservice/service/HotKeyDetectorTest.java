@@ -0,0 +1,60 @@
+package com.incrementservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HotKeyDetectorTest {
+
+    @Test
+    void testCounterKey_ShardsKeyOnceHotAndRetiresItAfterCoolDown() {
+        HotKeyDetector detector = new HotKeyDetector(true, 4, 1, 3, 1, 10, 64, new SimpleMeterRegistry());
+
+        assertEquals("a", detector.counterKey("a"));
+        assertEquals("a", detector.counterKey("a"));
+        assertTrue(detector.counterKey("a").matches("a#[0-3]"));
+        assertTrue(detector.counterKey("a").matches("a#[0-3]"));
+        assertEquals("b", detector.counterKey("b"));
+
+        detector.rotateWindow();
+        assertTrue(detector.counterKey("a").matches("a#[0-3]"));
+        detector.rotateWindow();
+        detector.rotateWindow();
+        assertEquals("a", detector.counterKey("a"));
+    }
+
+    @Test
+    void testCounterKeys_ListsKeyAndShards() {
+        HotKeyDetector enabled = new HotKeyDetector(true, 2, 1, 3, 1, 10, 64, new SimpleMeterRegistry());
+        HotKeyDetector disabled = new HotKeyDetector(false, 2, 1, 3, 1, 10, 64, new SimpleMeterRegistry());
+
+        assertEquals(List.of("a", "a#0", "a#1"), enabled.counterKeys("a"));
+        assertEquals(List.of("a#7#", "a#7##0", "a#7##1"), enabled.counterKeys("a#7"));
+        assertEquals(List.of("a#7"), disabled.counterKeys("a#7"));
+    }
+
+    @Test
+    void testBaseKey_ReversesCounterNames() {
+        HotKeyDetector detector = new HotKeyDetector(true, 4, 1, 3, 1, 10, 64, new SimpleMeterRegistry());
+
+        for (String key : List.of("a", "a#", "a##", "a#7", "a#7#", "#1", "a#b", "7")) {
+            String counterKey = HotKeyDetector.escape(key);
+            assertEquals(key, detector.baseKey(counterKey));
+            assertEquals(key, detector.baseKey(counterKey + "#3"));
+        }
+    }
+
+    @Test
+    void testBaseKey_KeepsNamesAsIsWhenDisabled() {
+        HotKeyDetector detector = new HotKeyDetector(false, 4, 1, 3, 1, 10, 64, new SimpleMeterRegistry());
+
+        for (String key : List.of("a", "order#1", "a#", "a#7#")) {
+            assertEquals(key, detector.counterKey(key));
+            assertEquals(key, detector.baseKey(detector.counterKey(key)));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.incrementservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisSystemException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementBatcherTest {
+
+    private final IncrementBatcher batcher =
+            new IncrementBatcher(true, 5_000, 64, 1_000, 5_000, new SimpleMeterRegistry());
+
+    @AfterEach
+    void tearDown() {
+        batcher.stop();
+    }
+
+    @Test
+    void testIncrement_SharesBatchesAcrossCallers() throws Exception {
+        Map<String, Long> written = new ConcurrentHashMap<>();
+        CopyOnWriteArrayList<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        batcher.start(deltas -> {
+            batchSizes.add(deltas.size());
+            deltas.forEach((key, delta) -> written.merge(key, delta, Long::sum));
+            return Map.of();
+        });
+
+        int callers = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch done = new CountDownLatch(callers);
+        for (int i = 0; i < callers; i++) {
+            String key = "key" + (i % 4);
+            executor.execute(() -> {
+                assertTrue(batcher.increment(key, 1));
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(32L, written.values().stream().mapToLong(Long::longValue).sum());
+        assertTrue(batchSizes.size() < callers);
+    }
+
+    @Test
+    void testIncrement_PropagatesFailedKeys() {
+        batcher.start(deltas -> deltas);
+
+        assertThrows(RedisSystemException.class, () -> batcher.increment("a", 1));
+    }
+
+    @Test
+    void testIncrement_TimesOutOnlyIncrementsStillQueued() throws Exception {
+        IncrementBatcher slowBatcher = new IncrementBatcher(true, 0, 1, 1_000, 100, new SimpleMeterRegistry());
+        CountDownLatch release = new CountDownLatch(1);
+        CopyOnWriteArrayList<String> writtenKeys = new CopyOnWriteArrayList<>();
+        slowBatcher.start(deltas -> {
+            writtenKeys.addAll(deltas.keySet());
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Map.of();
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> written = executor.submit(() -> slowBatcher.increment("a", 1));
+            while (writtenKeys.isEmpty()) {
+                Thread.sleep(1);
+            }
+
+            assertThrows(QueryTimeoutException.class, () -> slowBatcher.increment("b", 1));
+
+            release.countDown();
+            assertTrue(written.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+            slowBatcher.stop();
+        }
+        assertEquals(List.of("a"), writtenKeys);
+    }
+
+    @Test
+    void testIncrement_RejectedWhenNotStarted() {
+        assertFalse(batcher.increment("a", 1));
+    }
+}
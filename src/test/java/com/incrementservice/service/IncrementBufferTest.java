@@ -0,0 +1,76 @@
+package com.incrementservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementBufferTest {
+
+    @Test
+    void testDrain_SumsDeltasPerKey() {
+        IncrementBuffer buffer = new IncrementBuffer(true, 10, 5, new SimpleMeterRegistry());
+
+        buffer.add("a", 1);
+        buffer.add("a", 2);
+        buffer.add("b", 5);
+
+        assertEquals(Map.of("a", 3L, "b", 5L), buffer.drain());
+        assertTrue(buffer.drain().isEmpty());
+    }
+
+    @Test
+    void testAdd_RejectsNewKeysWhenFull() {
+        IncrementBuffer buffer = new IncrementBuffer(true, 1, 1, new SimpleMeterRegistry());
+
+        assertTrue(buffer.add("a", 1));
+        assertTrue(buffer.isFlushDue());
+        assertTrue(buffer.add("a", 1));
+        assertFalse(buffer.add("b", 1));
+    }
+
+    @Test
+    void testRestore_IgnoresKeyBound() {
+        IncrementBuffer buffer = new IncrementBuffer(true, 1, 1, new SimpleMeterRegistry());
+
+        buffer.add("a", 1);
+        buffer.restore("b", 7);
+
+        assertEquals(Map.of("a", 1L, "b", 7L), buffer.drain());
+    }
+
+    @Test
+    void testDrain_ConcurrentWritersLoseNothing() throws Exception {
+        IncrementBuffer buffer = new IncrementBuffer(true, 1000, 1000, new SimpleMeterRegistry());
+        int writers = 8;
+        int incrementsPerWriter = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        CountDownLatch done = new CountDownLatch(writers);
+        for (int i = 0; i < writers; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < incrementsPerWriter; j++) {
+                    buffer.add("hot", 1);
+                }
+                done.countDown();
+            });
+        }
+
+        Map<String, Long> total = new HashMap<>();
+        while (!done.await(1, TimeUnit.MILLISECONDS)) {
+            buffer.drain().forEach((key, delta) -> total.merge(key, delta, Long::sum));
+        }
+        buffer.drain().forEach((key, delta) -> total.merge(key, delta, Long::sum));
+        executor.shutdown();
+
+        assertEquals((long) writers * incrementsPerWriter, total.get("hot"));
+    }
+}
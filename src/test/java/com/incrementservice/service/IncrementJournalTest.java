@@ -0,0 +1,160 @@
+package com.incrementservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementJournalTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void testReplay_SumsIncrementsOfPreviousRun() throws IOException {
+        IncrementJournal journal = open(1024);
+        journal.append("a", 1, () -> true);
+        journal.appendAll(Map.of("a", 2L, "b", 3L), (key, delta) -> true);
+        journal.close();
+
+        IncrementJournal restarted = open(1024);
+        IncrementJournal.Replay replay = restarted.replay(-1);
+        restarted.close();
+
+        assertEquals(Map.of("a", 3L, "b", 3L), replay.deltas());
+        assertEquals(1, replay.lastSegment());
+    }
+
+    @Test
+    void testAppend_DiscardsRejectedIncrement() throws IOException {
+        IncrementJournal journal = open(1024);
+        assertFalse(journal.append("a", 1, () -> false));
+        journal.append("b", 2, () -> true);
+        Map<String, Long> rejected = journal.appendAll(Map.of("c", 3L), (key, delta) -> false);
+        journal.close();
+
+        assertEquals(Map.of("c", 3L), rejected);
+        assertEquals(Map.of("b", 2L), reopenAndReplay(1024));
+    }
+
+    @Test
+    void testDrain_ConfirmsPositionWithinSegment() throws IOException {
+        IncrementJournal journal = open(1024);
+        journal.append("a", 1, () -> true);
+        IncrementJournal.Drained<String> drained = journal.drain(() -> "drained");
+        journal.append("a", 2, () -> true);
+        journal.confirm(drained.position());
+        journal.close();
+
+        assertEquals("drained", drained.value());
+        assertEquals(IncrementJournal.position(1, 17), drained.position());
+        assertEquals(1, segmentCount());
+        assertEquals(Map.of("a", 2L), reopenAndReplay(1024));
+    }
+
+    @Test
+    void testDrain_ReplacesSegmentOnlyOnceOlderThanMaxAge() throws IOException {
+        IncrementJournal journal = open(1024, 60000);
+        for (int i = 0; i < 5; i++) {
+            journal.append("a", 1, () -> true);
+            journal.confirm(journal.drain(() -> "drained").position());
+        }
+        journal.close();
+        assertEquals(1, segmentCount());
+
+        IncrementJournal aged = open(1024, 0);
+        aged.append("a", 1, () -> true);
+        IncrementJournal.Drained<String> drained = aged.drain(() -> "drained");
+        aged.confirm(drained.position());
+        aged.close();
+
+        // The confirmed segments of both runs are deleted, the empty segment opened by the roll is kept
+        assertEquals(IncrementJournal.position(3, 0), drained.position());
+        assertEquals(1, segmentCount());
+        assertEquals(Map.of(), reopenAndReplay(1024));
+    }
+
+    @Test
+    void testAppend_RollsFullSegments() throws IOException {
+        IncrementJournal journal = open(64);
+        for (int i = 0; i < 10; i++) {
+            journal.append("key", 1, () -> true);
+        }
+        journal.close();
+
+        assertTrue(segmentCount() > 1);
+        assertEquals(Map.of("key", 10L), reopenAndReplay(64));
+    }
+
+    @Test
+    void testReplay_StopsAtCorruptRecord() throws IOException {
+        IncrementJournal journal = open(1024);
+        journal.append("a", 1, () -> true);
+        journal.append("b", 2, () -> true);
+        journal.close();
+        try (FileChannel channel = FileChannel.open(directory.resolve("segment-0000000000000001.log"),
+                StandardOpenOption.WRITE)) {
+            // Flips a byte of the delta of the second record, as a torn write would
+            channel.write(ByteBuffer.wrap(new byte[] {0x7f}), 17 + 4 + 7);
+        }
+
+        assertEquals(Map.of("a", 1L), reopenAndReplay(1024));
+    }
+
+    @Test
+    void testAppend_GroupCommitsConcurrentIncrements() throws Exception {
+        IncrementJournal journal = open(1 << 20);
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            for (int i = 0; i < 4; i++) {
+                executor.submit(() -> {
+                    for (int j = 0; j < 500; j++) {
+                        journal.append("a", 1, () -> true);
+                    }
+                });
+            }
+        }
+        journal.close();
+
+        assertEquals(Map.of("a", 2000L), reopenAndReplay(1 << 20));
+    }
+
+    private IncrementJournal open(int segmentBytes) throws IOException {
+        return open(segmentBytes, 60000);
+    }
+
+    private IncrementJournal open(int segmentBytes, long segmentMaxAgeMillis) throws IOException {
+        IncrementJournal journal = new IncrementJournal(true, "increment", directory.toString(), segmentBytes,
+                segmentMaxAgeMillis, true, 5000, new SimpleMeterRegistry());
+        journal.open();
+        return journal;
+    }
+
+    private Map<String, Long> reopenAndReplay(int segmentBytes) throws IOException {
+        IncrementJournal journal = open(segmentBytes);
+        try {
+            return journal.replay(-1).deltas();
+        } finally {
+            journal.close();
+        }
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("segment-")).count();
+        }
+    }
+}
@@ -1,33 +1,37 @@
 package com.incrementservice.service;
 
-import com.incrementservice.entity.SumEntity;
-import com.incrementservice.repository.SumRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
+import org.mockito.Spy;
+import org.springframework.data.redis.RedisConnectionFailureException;
 
-import java.time.Duration;
-import java.util.Optional;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.Mockito.*;
 
 class IncrementServiceTest {
 
     @Mock
-    private RedisTemplate<String, Integer> redisTemplate;
+    private CounterStore counterStore;
 
     @Mock
-    private ValueOperations<String, Integer> valueOperations;
+    private IncrementBuffer incrementBuffer;
 
     @Mock
-    private SumRepository sumRepository;
+    private IncrementBatcher incrementBatcher;
+
+    @Mock
+    private TopKeysTracker topKeysTracker;
+
+    @Spy
+    private IncrementJournal incrementJournal =
+            new IncrementJournal(false, "increment", "journal", 1024, 60000, false, 5000, new SimpleMeterRegistry());
 
     @InjectMocks
     private IncrementService incrementService;
@@ -35,82 +39,83 @@ class IncrementServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
     }
 
     @Test
-    void testSaveOrUpdateDataInRedis_NewKey() {
-        String key = "testKey";
-        Integer value = 10;
-        String shadowKey = "shadow:" + key;
+    void testSaveOrUpdateDataInRedis_IncrementsStore() {
+        incrementService.saveOrUpdateDataInRedis("testKey", 10);
 
-        when(redisTemplate.hasKey(key)).thenReturn(false);
+        verify(counterStore).increment("testKey", 10);
+        verify(topKeysTracker).record("testKey");
+    }
 
-        incrementService.saveOrUpdateDataInRedis(key, value);
+    @Test
+    void testSaveOrUpdateDataInRedis_Buffered() {
+        when(incrementBuffer.isEnabled()).thenReturn(true);
+        when(incrementBuffer.add("testKey", 10)).thenReturn(true);
+
+        incrementService.saveOrUpdateDataInRedis("testKey", 10);
 
-        verify(valueOperations).set(eq(key), eq(value), eq(Duration.ofSeconds(10)));
-        verify(valueOperations).set(eq(shadowKey), eq(value));
-        verify(valueOperations, never()).increment(anyString(), anyInt());
+        verifyNoInteractions(counterStore);
     }
 
     @Test
-    void testSaveOrUpdateDataInRedis_ExistingKey() {
-        String key = "testKey";
-        Integer value = 10;
-        String shadowKey = "shadow:" + key;
-
-        when(redisTemplate.hasKey(key)).thenReturn(true);
+    void testSaveOrUpdateDataInRedis_BufferFull() {
+        when(incrementBuffer.isEnabled()).thenReturn(true);
+        when(incrementBuffer.add("testKey", 10)).thenReturn(false);
 
-        incrementService.saveOrUpdateDataInRedis(key, value);
+        incrementService.saveOrUpdateDataInRedis("testKey", 10);
 
-        // Expect Long type instead of Integer
-        verify(valueOperations).increment(eq(key), eq(Long.valueOf(value)));
-        verify(valueOperations).increment(eq(shadowKey), eq(Long.valueOf(value)));
-        verify(valueOperations, never()).set(eq(key), eq(value), eq(Duration.ofSeconds(10)));
+        verify(counterStore).increment("testKey", 10);
     }
 
     @Test
-    void testProcessExpiredKey_NoLockAcquired() {
-        String expiredKey = "testKey";
-        Integer value = 10;
-        String shadowKey = "shadow:" + expiredKey;
+    void testSaveOrUpdateDataInRedis_Batched() {
+        when(incrementBatcher.isEnabled()).thenReturn(true);
+        when(incrementBatcher.increment("testKey", 10)).thenReturn(true);
 
-        when(valueOperations.get(shadowKey)).thenReturn(value);
-        when(valueOperations.setIfAbsent(eq(shadowKey), eq(value), eq(Duration.ofSeconds(10))))
-                .thenReturn(false);
-
-        incrementService.processExpiredKey(expiredKey);
+        incrementService.saveOrUpdateDataInRedis("testKey", 10);
 
+        verifyNoInteractions(counterStore);
     }
 
     @Test
-    void testUpdateOrInsertRecord_NewRecord() {
-        String expiredKey = "testKey";
-        Integer value = 10;
+    void testFlushBuffer_WritesSummedDelta() {
+        when(incrementBuffer.isEnabled()).thenReturn(true);
+        when(incrementBuffer.drain()).thenReturn(Map.of("testKey", 25L));
+        when(counterStore.incrementAll(Map.of("testKey", 25L))).thenReturn(Map.of());
+
+        incrementService.flushBuffer();
 
-        when(sumRepository.findByKey(expiredKey)).thenReturn(Optional.empty());
+        verify(counterStore).incrementAll(Map.of("testKey", 25L));
+        verify(incrementBuffer, never()).restore(anyString(), anyLong());
+    }
 
-        incrementService.updateOrInsertRecord(expiredKey, value);
+    @Test
+    void testFlushBuffer_RestoresDeltaOnFailure() {
+        when(incrementBuffer.isEnabled()).thenReturn(true);
+        when(incrementBuffer.drain()).thenReturn(Map.of("testKey", 25L));
+        when(counterStore.incrementAll(anyMap())).thenThrow(new RedisConnectionFailureException("connection lost"));
 
-        ArgumentCaptor<SumEntity> captor = ArgumentCaptor.forClass(SumEntity.class);
-        verify(sumRepository).save(captor.capture());
-        SumEntity savedEntity = captor.getValue();
+        incrementService.flushBuffer();
 
-        assertEquals(expiredKey, savedEntity.getKey());
-        assertEquals(value, savedEntity.getSum());
+        verify(incrementBuffer).restore("testKey", 25L);
     }
 
     @Test
-    void testUpdateOrInsertRecord_ExistingRecord() {
-        String expiredKey = "testKey";
-        Integer value = 10;
-        SumEntity existingRecord = SumEntity.builder().key(expiredKey).sum(20).build();
+    void testSaveOrUpdateBatchInRedis_WritesBatchAtOnce() {
+        when(counterStore.incrementAll(Map.of("a", 1L, "b", 2L))).thenReturn(Map.of());
 
-        when(sumRepository.findByKey(expiredKey)).thenReturn(Optional.of(existingRecord));
+        incrementService.saveOrUpdateBatchInRedis(Map.of("a", 1L, "b", 2L));
 
-        incrementService.updateOrInsertRecord(expiredKey, value);
+        verify(counterStore).incrementAll(Map.of("a", 1L, "b", 2L));
+        verify(counterStore, never()).increment(anyString(), anyLong());
+    }
+
+    @Test
+    void testSaveOrUpdateBatchInRedis_ReturnsFailedKeysOnPartialError() {
+        when(counterStore.incrementAll(anyMap())).thenReturn(Map.of("a", 1L));
 
-        verify(sumRepository).save(existingRecord);
-        assertEquals(30, existingRecord.getSum());
+        assertEquals(Map.of("a", 1L), incrementService.saveOrUpdateBatchInRedis(Map.of("a", 1L, "b", 2L)));
     }
 }
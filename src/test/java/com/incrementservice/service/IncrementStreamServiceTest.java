@@ -0,0 +1,120 @@
+package com.incrementservice.service;
+
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IncrementStreamServiceTest {
+
+    @Mock
+    private IncrementService incrementService;
+
+    private IncrementStreamService streamService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        streamService = new IncrementStreamService(incrementService, Jackson2ObjectMapperBuilder.json().build(),
+                Validation.buildDefaultValidatorFactory().getValidator(), 2, 10);
+    }
+
+    @Test
+    void testIngest_WritesSummedWindows() throws IOException {
+        IncrementStreamService.StreamResult result = streamService.ingest(body("""
+                {"key":"a","value":1}
+                {"key":"a","value":2}
+                {"key":"b","value":3}
+                {"key":"c","value":4}
+                """), records -> true);
+
+        assertEquals(new IncrementStreamService.StreamResult(4, 0, IncrementStreamService.Outcome.COMPLETED), result);
+        verify(incrementService).saveOrUpdateBatchInRedis(Map.of("a", 3L, "b", 3L));
+        verify(incrementService).saveOrUpdateBatchInRedis(Map.of("c", 4L));
+    }
+
+    @Test
+    void testIngest_SkipsInvalidRecords() throws IOException {
+        IncrementStreamService.StreamResult result = streamService.ingest(body("""
+                {"value":1}
+                {"key":"a","value":{"nested":[1,2]}}
+                [1,2]
+                {"key":" ","value":1}
+                {"key":"a","value":5}
+                """), records -> true);
+
+        assertEquals(new IncrementStreamService.StreamResult(1, 4, IncrementStreamService.Outcome.COMPLETED), result);
+        verify(incrementService).saveOrUpdateBatchInRedis(Map.of("a", 5L));
+    }
+
+    @Test
+    void testIngest_SkipsRecordsOverflowingSumOfKey() throws IOException {
+        IncrementStreamService.StreamResult result = streamService.ingest(body("""
+                {"key":"a","value":%d}
+                {"key":"a","value":1}
+                {"key":"b","value":2}
+                """.formatted(Long.MAX_VALUE)), records -> true);
+
+        assertEquals(new IncrementStreamService.StreamResult(2, 1, IncrementStreamService.Outcome.COMPLETED), result);
+        verify(incrementService).saveOrUpdateBatchInRedis(Map.of("a", Long.MAX_VALUE, "b", 2L));
+    }
+
+    @Test
+    void testIngest_StopsAtMalformedJson() throws IOException {
+        IncrementStreamService.StreamResult result = streamService.ingest(body("""
+                {"key":"a","value":1}
+                {"key":"b",
+                """), records -> true);
+
+        assertEquals(new IncrementStreamService.StreamResult(0, 0, IncrementStreamService.Outcome.MALFORMED), result);
+        verify(incrementService, never()).saveOrUpdateBatchInRedis(any());
+    }
+
+    @Test
+    void testIngest_StopsWhenWindowIsNotAdmitted() throws IOException {
+        IncrementStreamService.StreamResult result = streamService.ingest(body("""
+                {"key":"a","value":1}
+                {"key":"b","value":2}
+                {"key":"c","value":3}
+                """), records -> false);
+
+        assertEquals(IncrementStreamService.Outcome.RATE_LIMITED, result.outcome());
+        verify(incrementService, never()).saveOrUpdateBatchInRedis(any());
+    }
+
+    @Test
+    void testIngest_StopsAtWindowWithFailedKeys() throws IOException {
+        when(incrementService.saveOrUpdateBatchInRedis(Map.of("c", 3L, "d", 4L))).thenReturn(Map.of("d", 4L));
+
+        IncrementStreamService.StreamResult result = streamService.ingest(body("""
+                {"key":"a","value":1}
+                {"key":"b","value":2}
+                {"key":"c","value":3}
+                {"key":"d","value":4}
+                {"key":"e","value":5}
+                """), records -> true);
+
+        assertEquals(new IncrementStreamService.StreamResult(3, 0, 1, List.of("d"),
+                IncrementStreamService.Outcome.FAILED), result);
+        verify(incrementService, never()).saveOrUpdateBatchInRedis(Map.of("e", 5L));
+    }
+
+    private static InputStream body(String records) {
+        return new ByteArrayInputStream(records.getBytes(StandardCharsets.UTF_8));
+    }
+}
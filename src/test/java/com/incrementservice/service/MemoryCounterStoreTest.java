@@ -0,0 +1,105 @@
+package com.incrementservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MemoryCounterStoreTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final MemoryCounterStore counterStore = new MemoryCounterStore(2,
+            new IncrementJournal(false, "increment", "journal", 1024, 60000, false, 5000, new SimpleMeterRegistry()),
+            meterRegistry);
+
+    @Test
+    void testIncrement_CountsConcurrentIncrements() throws Exception {
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            for (int i = 0; i < 4; i++) {
+                executor.submit(() -> {
+                    for (int j = 0; j < 10000; j++) {
+                        counterStore.increment("a", 1);
+                    }
+                });
+            }
+        }
+
+        assertEquals(Map.of("a", 40000L, "b", 0L), counterStore.unflushedValues(List.of("a", "b")));
+    }
+
+    @Test
+    void testDrain_KeepsValuesPendingUntilAcknowledged() {
+        counterStore.incrementAll(Map.of("a", 5L, "b", 2L));
+        assertEquals(7, meterRegistry.get("increment.unflushed.delta").gauge().value());
+
+        assertEquals(Map.of("a", 5L, "b", 2L), counterStore.drain());
+        counterStore.increment("a", 1);
+        assertEquals(Map.of("a", 6L), counterStore.unflushedValues(List.of("a")));
+
+        counterStore.acknowledge(List.of("b"));
+        assertEquals(Map.of("a", 6L), counterStore.drain());
+        counterStore.acknowledge(List.of("a"));
+        assertEquals(Map.of(), counterStore.drain());
+        assertEquals(1, meterRegistry.get("increment.flush.lag").timer().count());
+    }
+
+    @Test
+    void testDrain_DrainsRetiredCounterOnceMore() {
+        counterStore.increment("a", 5);
+        counterStore.drain();
+        counterStore.acknowledge(List.of("a"));
+        counterStore.drain();
+        counterStore.drain();
+
+        // The retired counter is drained once more and a new counter takes over the key
+        counterStore.increment("a", 3);
+        assertEquals(Map.of("a", 3L), counterStore.drain());
+    }
+
+    @Test
+    void testDrain_KeepsIncrementsRacingWithRetirement() throws Exception {
+        AtomicBoolean incrementing = new AtomicBoolean(true);
+        long drained = 0;
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            Future<?>[] writers = new Future<?>[4];
+            for (int i = 0; i < writers.length; i++) {
+                writers[i] = executor.submit(() -> {
+                    for (int j = 0; j < 20000; j++) {
+                        counterStore.increment("k" + ThreadLocalRandom.current().nextInt(500), 1);
+                    }
+                });
+            }
+            executor.submit(() -> {
+                for (Future<?> writer : writers) {
+                    writer.get();
+                }
+                incrementing.set(false);
+                return null;
+            });
+            // Flushes as often as possible, so idle counters are retired while they are being incremented
+            while (incrementing.get()) {
+                drained += drainAndAcknowledge();
+            }
+        }
+        for (int i = 0; i < 2; i++) {
+            drained += drainAndAcknowledge();
+        }
+
+        assertEquals(80000, drained);
+    }
+
+    private long drainAndAcknowledge() {
+        Map<String, Long> values = counterStore.drain();
+        counterStore.acknowledge(values.keySet());
+        return values.values().stream().mapToLong(Long::longValue).sum();
+    }
+}
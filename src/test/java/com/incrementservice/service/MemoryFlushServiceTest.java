@@ -0,0 +1,125 @@
+package com.incrementservice.service;
+
+import com.incrementservice.repository.JournalCheckpointRepository;
+import com.incrementservice.repository.SumRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MemoryFlushServiceTest {
+
+    @Spy
+    private IncrementJournal incrementJournal =
+            new IncrementJournal(false, "increment", "journal", 1024, 60000, false, 5000, new SimpleMeterRegistry());
+
+    @Spy
+    private MemoryCounterStore counterStore = new MemoryCounterStore(60, incrementJournal, new SimpleMeterRegistry());
+
+    @Mock
+    private SumRepository sumRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private SumQueryService sumQueryService;
+
+    @Mock
+    private JournalCheckpointRepository checkpointRepository;
+
+    @Mock
+    private CounterHistoryService counterHistoryService;
+
+    @InjectMocks
+    private MemoryFlushService flushService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void testFlush_PersistsAndAcknowledgesCounters() {
+        counterStore.increment("a", 5);
+
+        flushService.flush();
+
+        verify(sumRepository).upsertAll(Map.of("a", 5L));
+        verify(sumQueryService).invalidate(Set.of("a"));
+        verify(counterHistoryService).record(eq(Map.of("a", 5L)), anyLong());
+        assertEquals(Map.of("a", 0L), counterStore.unflushedValues(List.of("a")));
+    }
+
+    @Test
+    void testFlush_RetriesFailedValuesWithNextFlush() {
+        counterStore.increment("a", 5);
+        doThrow(new IllegalStateException("database down")).doNothing().when(sumRepository).upsertAll(any());
+
+        flushService.flush();
+        verify(counterStore, never()).acknowledge(any());
+        assertEquals(Map.of("a", 5L), counterStore.unflushedValues(List.of("a")));
+
+        counterStore.increment("a", 1);
+        flushService.flush();
+        verify(sumRepository).upsertAll(Map.of("a", 6L));
+    }
+
+    @Test
+    void testFlush_CheckpointsJournalAndReplaysUnpersistedIncrements(@TempDir Path directory) throws Exception {
+        IncrementJournal journal = new IncrementJournal(true, "increment", directory.toString(), 1024, 60000, false,
+                5000, new SimpleMeterRegistry());
+        journal.open();
+        MemoryCounterStore store = new MemoryCounterStore(60, journal, new SimpleMeterRegistry());
+        MemoryFlushService service = new MemoryFlushService(store, sumRepository, transactionTemplate,
+                sumQueryService, journal, checkpointRepository, counterHistoryService);
+        store.increment("a", 5);
+        service.flush();
+        long position = IncrementJournal.position(1, 17);
+        verify(checkpointRepository).save("increment", position);
+        store.increment("a", 2);
+        journal.close();
+        // The checkpoint in the database is exact even if the one in the journal directory is lost
+        Files.delete(directory.resolve("checkpoint"));
+
+        // Restart after a crash: the first record is persisted, the second one is replayed
+        IncrementJournal restarted = new IncrementJournal(true, "increment", directory.toString(), 1024, 60000, false,
+                5000, new SimpleMeterRegistry());
+        restarted.open();
+        MemoryCounterStore restartedStore = new MemoryCounterStore(60, restarted, new SimpleMeterRegistry());
+        when(checkpointRepository.findPosition("increment")).thenReturn(position);
+        new MemoryFlushService(restartedStore, sumRepository, transactionTemplate, sumQueryService, restarted,
+                checkpointRepository, counterHistoryService).replayJournal();
+        restarted.close();
+
+        assertEquals(Map.of("a", 2L), restartedStore.unflushedValues(List.of("a")));
+    }
+}
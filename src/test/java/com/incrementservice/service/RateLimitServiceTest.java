@@ -0,0 +1,166 @@
+package com.incrementservice.service;
+
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import io.github.bucket4j.distributed.BucketProxy;
+import io.github.bucket4j.distributed.proxy.RemoteAsyncBucketBuilder;
+import io.github.bucket4j.distributed.proxy.RemoteBucketBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RateLimitServiceTest {
+
+    @Mock
+    private RemoteBucketBuilder<String> bucketBuilder;
+
+    @Mock
+    private RemoteAsyncBucketBuilder<String> asyncBucketBuilder;
+
+    @Mock
+    private Supplier<BucketConfiguration> bucketConfiguration;
+
+    @Mock
+    private BucketProxy bucket;
+
+    @Mock
+    private AsyncBucketProxy asyncBucket;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(bucketBuilder.build(anyString(), ArgumentMatchers.<Supplier<BucketConfiguration>>any()))
+                .thenReturn(bucket);
+        when(asyncBucketBuilder.build(anyString(),
+                ArgumentMatchers.<Supplier<CompletableFuture<BucketConfiguration>>>any()))
+                .thenReturn(asyncBucket);
+    }
+
+    @Test
+    void testTryConsume_DistributedConsumesEveryRequest() {
+        RateLimitService service = new RateLimitService(bucketBuilder, asyncBucketBuilder, bucketConfiguration,
+                false, "distributed", 5, 1000, new SimpleMeterRegistry());
+        ConsumptionProbe probe = mock(ConsumptionProbe.class);
+        when(probe.isConsumed()).thenReturn(true);
+        when(bucket.tryConsumeAndReturnRemaining(1)).thenReturn(probe);
+
+        assertTrue(service.tryConsume("client", 1));
+        assertTrue(service.tryConsume("client", 1));
+
+        verify(bucket, times(2)).tryConsumeAndReturnRemaining(1);
+    }
+
+    @Test
+    void testTryConsume_HybridServesFromLocalReserve() {
+        RateLimitService service = new RateLimitService(bucketBuilder, asyncBucketBuilder, bucketConfiguration,
+                false, "hybrid", 5, 1000, new SimpleMeterRegistry());
+        when(bucket.tryConsumeAsMuchAsPossible(5)).thenReturn(5L);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(service.tryConsume("client", 1));
+        }
+
+        verify(bucket, times(1)).tryConsumeAsMuchAsPossible(anyLong());
+        verify(bucket, never()).tryConsumeAndReturnRemaining(anyLong());
+    }
+
+    @Test
+    void testTryConsume_HybridRejectsWhenDistributedBucketIsEmpty() {
+        RateLimitService service = new RateLimitService(bucketBuilder, asyncBucketBuilder, bucketConfiguration,
+                false, "hybrid", 5, 1000, new SimpleMeterRegistry());
+        when(bucket.tryConsumeAsMuchAsPossible(5)).thenReturn(2L, 0L);
+
+        assertTrue(service.tryConsume("client", 1));
+        assertTrue(service.tryConsume("client", 1));
+        assertFalse(service.tryConsume("client", 1));
+    }
+
+    @Test
+    void testSyncReserves_ReturnsUnusedTokensOfIdleClients() throws Exception {
+        RateLimitService service = new RateLimitService(bucketBuilder, asyncBucketBuilder, bucketConfiguration,
+                false, "hybrid", 5, 1, new SimpleMeterRegistry());
+        when(bucket.tryConsumeAsMuchAsPossible(5)).thenReturn(5L);
+
+        assertTrue(service.tryConsume("client", 1));
+        Thread.sleep(5);
+        service.syncReserves();
+
+        verify(bucket).addTokens(4);
+    }
+
+    @Test
+    void testSyncReserves_ReturnsUnusedTokensOfActiveClients() {
+        RateLimitService service = new RateLimitService(bucketBuilder, asyncBucketBuilder, bucketConfiguration,
+                false, "hybrid", 5, 60000, new SimpleMeterRegistry());
+        when(bucket.tryConsumeAsMuchAsPossible(5)).thenReturn(5L);
+
+        assertTrue(service.tryConsume("client", 1));
+        service.syncReserves();
+        assertTrue(service.tryConsume("client", 1));
+
+        verify(bucket).addTokens(4);
+        verify(bucket, times(2)).tryConsumeAsMuchAsPossible(5);
+    }
+
+    @Test
+    void testTryConsume_ReturnsReserveOfClientForgottenWhileReserving() {
+        RateLimitService service = new RateLimitService(bucketBuilder, asyncBucketBuilder, bucketConfiguration,
+                false, "hybrid", 5, 0, new SimpleMeterRegistry());
+        when(bucket.tryConsumeAsMuchAsPossible(5)).thenAnswer(invocation -> {
+            Thread.sleep(5);
+            service.syncReserves();
+            return 5L;
+        });
+
+        assertTrue(service.tryConsume("client", 1));
+
+        verify(bucket).addTokens(4);
+    }
+
+    @Test
+    void testTryConsumeAsync_SerializesConcurrentReservations() {
+        RateLimitService service = new RateLimitService(bucketBuilder, asyncBucketBuilder, bucketConfiguration,
+                false, "hybrid", 5, 60000, new SimpleMeterRegistry());
+        CompletableFuture<Long> granted = new CompletableFuture<>();
+        when(asyncBucket.tryConsumeAsMuchAsPossible(5)).thenReturn(granted);
+
+        CompletableFuture<Boolean> first = service.tryConsumeAsync("client", 1);
+        CompletableFuture<Boolean> second = service.tryConsumeAsync("client", 1);
+        granted.complete(5L);
+
+        assertTrue(first.join());
+        assertTrue(second.join());
+        verify(asyncBucket, times(1)).tryConsumeAsMuchAsPossible(anyLong());
+    }
+
+    @Test
+    void testTryConsumeAsync_HybridServesFromLocalReserve() {
+        RateLimitService service = new RateLimitService(bucketBuilder, asyncBucketBuilder, bucketConfiguration,
+                false, "hybrid", 5, 1000, new SimpleMeterRegistry());
+        when(asyncBucket.tryConsumeAsMuchAsPossible(5)).thenReturn(CompletableFuture.completedFuture(2L));
+
+        assertTrue(service.tryConsumeAsync("client", 1).join());
+        assertTrue(service.tryConsumeAsync("client", 1).join());
+
+        verify(asyncBucket, times(1)).tryConsumeAsMuchAsPossible(anyLong());
+        verify(bucket, never()).tryConsumeAsMuchAsPossible(anyLong());
+    }
+}
@@ -0,0 +1,66 @@
+package com.incrementservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.ObjectProvider;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReactiveIncrementServiceTest {
+
+    @Mock
+    private IncrementService incrementService;
+
+    @Mock
+    private IncrementBuffer incrementBuffer;
+
+    @Mock
+    private IncrementBatcher incrementBatcher;
+
+    @Mock
+    private ReactiveRedisCounterStore reactiveCounterStore;
+
+    @Mock
+    private ObjectProvider<ReactiveRedisCounterStore> reactiveCounterStoreProvider;
+
+    @Mock
+    private TopKeysTracker topKeysTracker;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(reactiveCounterStoreProvider.getIfAvailable()).thenReturn(reactiveCounterStore);
+    }
+
+    @Test
+    void testSaveOrUpdateData_WritesToRedisWithoutBlocking() {
+        when(reactiveCounterStore.increment("testKey", 10)).thenReturn(Mono.just(10L));
+        ReactiveIncrementService service = new ReactiveIncrementService(incrementService, incrementBuffer,
+                incrementBatcher, reactiveCounterStoreProvider, topKeysTracker);
+
+        service.saveOrUpdateData("testKey", 10).block();
+
+        verify(reactiveCounterStore).increment("testKey", 10);
+        verify(topKeysTracker).record("testKey");
+        verify(incrementService, never()).saveOrUpdateDataInRedis(anyString(), anyLong());
+    }
+
+    @Test
+    void testSaveOrUpdateData_BufferedGoesThroughIncrementService() {
+        when(incrementBuffer.isEnabled()).thenReturn(true);
+        ReactiveIncrementService service = new ReactiveIncrementService(incrementService, incrementBuffer,
+                incrementBatcher, reactiveCounterStoreProvider, topKeysTracker);
+
+        service.saveOrUpdateData("testKey", 10).block();
+
+        verify(incrementService).saveOrUpdateDataInRedis("testKey", 10);
+        verify(reactiveCounterStore, never()).increment(anyString(), anyLong());
+    }
+}
@@ -0,0 +1,128 @@
+package com.incrementservice.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RedisCounterStoreTest {
+
+    @Mock
+    private RedisTemplate<String, Long> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, Long> valueOperations;
+
+    @Spy
+    private HotKeyDetector hotKeyDetector =
+            new HotKeyDetector(false, 8, 16, 10000, 10, 1000, 4096, new SimpleMeterRegistry());
+
+    @Spy
+    private CounterKeyspace counterKeyspace = new CounterKeyspace("standalone", 128, hotKeyDetector);
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private RedisCounterStore counterStore;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    void testIncrement_RunsIncrementScript() {
+        String key = "testKey";
+        String shadowKey = "shadow:" + key;
+
+        counterStore.increment(key, 10);
+
+        verify(redisTemplate).execute(eq(RedisCounterStore.INCREMENT_SCRIPT),
+                ArgumentMatchers.<RedisSerializer<String>>any(), ArgumentMatchers.<RedisSerializer<Long>>any(),
+                eq(List.of(key, shadowKey, "increment:dirty", "increment:unflushed")),
+                eq("10"), eq("10"), anyString(), eq(key));
+        verify(redisTemplate, never()).hasKey(anyString());
+        verifyNoInteractions(valueOperations);
+    }
+
+    @Test
+    void testIncrementAll_RetriesOnNoScript() {
+        Map<String, Long> deltas = new LinkedHashMap<>();
+        deltas.put("a", 1L);
+        deltas.put("b", 2L);
+        RedisPipelineException noScript = new RedisPipelineException("pipeline failed",
+                List.of(new RedisSystemException("NOSCRIPT No matching script", null), 2L));
+        when(redisTemplate.executePipelined(ArgumentMatchers.<RedisCallback<Object>>any()))
+                .thenThrow(noScript)
+                .thenReturn(List.of(1L));
+
+        assertEquals(Map.of(), counterStore.incrementAll(deltas));
+
+        verify(redisTemplate).execute(ArgumentMatchers.<RedisCallback<Object>>any());
+        verify(redisTemplate, times(2)).executePipelined(ArgumentMatchers.<RedisCallback<Object>>any());
+    }
+
+    @Test
+    void testIncrementAll_ReturnsFailedEntries() {
+        RedisPipelineException error = new RedisPipelineException("pipeline failed",
+                List.of(new RedisSystemException("WRONGTYPE", null)));
+        when(redisTemplate.executePipelined(ArgumentMatchers.<RedisCallback<Object>>any())).thenThrow(error);
+
+        assertEquals(Map.of("a", 1L), counterStore.incrementAll(Map.of("a", 1L)));
+    }
+
+    @Test
+    void testUnflushedValues_AddsShadowAndPendingValues() {
+        when(valueOperations.multiGet(List.of("shadow:a", "pending:a", "shadow:b", "pending:b")))
+                .thenReturn(Arrays.asList(5L, 2L, null, null));
+
+        assertEquals(Map.of("a", 7L, "b", 0L), counterStore.unflushedValues(List.of("a", "b")));
+    }
+
+    @Test
+    void testUnflushedValues_SumsShardsOfHotKeys() {
+        RedisCounterStore shardedStore = new RedisCounterStore(redisTemplate,
+                new HotKeyDetector(true, 2, 1, 1, 10, 1000, 64, new SimpleMeterRegistry()), counterKeyspace,
+                meterRegistry);
+        when(valueOperations.multiGet(List.of("shadow:a", "pending:a", "shadow:a#0", "pending:a#0",
+                "shadow:a#1", "pending:a#1"))).thenReturn(Arrays.asList(1L, null, 2L, 3L, null, 4L));
+
+        assertEquals(Map.of("a", 10L), shardedStore.unflushedValues(List.of("a")));
+    }
+
+    @Test
+    void testUnflushedValues_ReadsClusterPartitionsInOnePipeline() {
+        RedisCounterStore clusterStore = new RedisCounterStore(redisTemplate, hotKeyDetector,
+                new CounterKeyspace("cluster", 2, hotKeyDetector), meterRegistry);
+        // "a" is in partition 1 and "b" in partition 0; partitions are read in order
+        when(redisTemplate.executePipelined(ArgumentMatchers.<RedisCallback<Object>>any()))
+                .thenReturn(List.of(Arrays.asList(4L, null), Arrays.asList(1L, 2L)));
+
+        assertEquals(Map.of("a", 3L, "b", 4L), clusterStore.unflushedValues(List.of("a", "b")));
+        verify(valueOperations, never()).multiGet(anyList());
+    }
+}
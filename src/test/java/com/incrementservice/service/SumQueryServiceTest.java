@@ -0,0 +1,61 @@
+package com.incrementservice.service;
+
+import com.incrementservice.entity.SumEntity;
+import com.incrementservice.repository.SumRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SumQueryServiceTest {
+
+    @Mock
+    private CounterStore counterStore;
+
+    @Mock
+    private SumRepository sumRepository;
+
+    private SumQueryService sumQueryService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        sumQueryService = new SumQueryService(counterStore, sumRepository, 100, 60000, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testGetSums_AddsUnflushedValuesToPersistedSum() {
+        when(counterStore.unflushedValues(anyCollection())).thenReturn(Map.of("a", 7L, "b", 0L));
+        when(sumRepository.findAllById(anyList())).thenReturn(List.of(new SumEntity("a", 10L)));
+
+        Map<String, Long> sums = sumQueryService.getSums(List.of("a", "b"));
+
+        assertEquals(Map.of("a", 17L, "b", 0L), sums);
+        assertEquals(List.of("a", "b"), List.copyOf(sums.keySet()));
+    }
+
+    @Test
+    void testGetSum_ServedFromCacheUntilInvalidated() {
+        when(counterStore.unflushedValues(List.of("a"))).thenReturn(Map.of("a", 3L));
+        when(sumRepository.findAllById(anyList())).thenReturn(List.of());
+
+        assertEquals(3L, sumQueryService.getSum("a"));
+        assertEquals(3L, sumQueryService.getSum("a"));
+        verify(counterStore, times(1)).unflushedValues(anyCollection());
+
+        sumQueryService.invalidate(List.of("a"));
+        assertEquals(3L, sumQueryService.getSum("a"));
+        verify(counterStore, times(2)).unflushedValues(anyCollection());
+    }
+}
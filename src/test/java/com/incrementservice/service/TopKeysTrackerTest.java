@@ -0,0 +1,70 @@
+package com.incrementservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopKeysTrackerTest {
+
+    private static void increment(TopKeysTracker tracker, String key, int times) {
+        for (int i = 0; i < times; i++) {
+            tracker.record(key);
+        }
+    }
+
+    @Test
+    void testTop_RanksHeavyHittersAmongManyKeys() {
+        TopKeysTracker tracker = new TopKeysTracker(true, 4, 3, 4096);
+        for (int i = 0; i < 10_000; i++) {
+            tracker.record("cold-" + i);
+            if (i % 10 == 0) {
+                tracker.record("hot");
+            }
+            if (i % 20 == 0) {
+                tracker.recordAll(List.of("warm", "hot"));
+            }
+        }
+
+        Map<String, Long> top = tracker.top(2, 1);
+
+        assertEquals(List.of("hot", "warm"), List.copyOf(top.keySet()));
+        assertTrue(top.get("hot") >= 1500);
+        assertTrue(top.get("warm") >= 500);
+    }
+
+    @Test
+    void testTop_MergesRecentWindows() {
+        TopKeysTracker tracker = new TopKeysTracker(true, 3, 2, 1024);
+        increment(tracker, "a", 5);
+        increment(tracker, "b", 3);
+        tracker.rotateWindow();
+        increment(tracker, "b", 4);
+
+        Map<String, Long> expected = new LinkedHashMap<>();
+        expected.put("b", 7L);
+        expected.put("a", 5L);
+        assertEquals(expected, tracker.top(2, 2));
+        assertEquals(Map.of("b", 4L), tracker.top(2, 1));
+
+        // The first window is replaced after as many rotations as there are windows
+        tracker.rotateWindow();
+        tracker.rotateWindow();
+
+        assertEquals(Map.of("b", 4L), tracker.top(2, 3));
+    }
+
+    @Test
+    void testRecord_IgnoredWhenDisabled() {
+        TopKeysTracker tracker = new TopKeysTracker(false, 3, 2, 1024);
+
+        increment(tracker, "a", 5);
+        tracker.rotateWindow();
+
+        assertEquals(Map.of(), tracker.top(2, 1));
+    }
+}